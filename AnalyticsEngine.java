@@ -0,0 +1,277 @@
+import java.util.*;
+
+// Keeps the dashboard numbers up to date as students/marks change, so rendering
+// the Analytics tab doesn't have to sort or scan every student.
+//
+// One ordered set (by average, then roll number) gives us lowest/highest, the top K
+// and the "below 50%" list as a range view; sum/count and the grade counters are
+// plain running totals. Medians/percentile bands and each student's percentile rank
+// come from fixed-bucket histograms of the averages (one overall, one per class).
+// Rankings (a student's rank, ranks a to b) come from order-statistic trees of the
+// students with marks, again one overall and one per class.
+// Events can come from any thread that changes students, so everything here is
+// synchronized on the engine.
+class AnalyticsEngine implements StudentListener {
+    static final double ATTENTION_THRESHOLD = 50.0;
+    static final String[] GRADE_ORDER = {"A+", "A", "B", "C", "D", "F"};
+
+    // snapshot of what we last saw for a student - the set is ordered by these
+    // values, so they can't change while the entry is in the set
+    private static final class Entry {
+        final Student student;
+        final double average;
+        final String rollNumber;
+        final int gradeIndex;
+        final boolean hasMarks;  // only students with marks go into the histograms
+
+        Entry(Student student) {
+            this(student, student.getAverageScore(), student.getRollNumber(), gradeIndex(student.getGrade()),
+                student.getMarkCount() > 0);
+        }
+
+        Entry(Student student, double average, String rollNumber, int gradeIndex, boolean hasMarks) {
+            this.student = student;
+            this.average = average;
+            this.rollNumber = rollNumber;
+            this.gradeIndex = gradeIndex;
+            this.hasMarks = hasMarks;
+        }
+    }
+
+    private static final Comparator<Entry> BY_AVERAGE = (a, b) -> {
+        int c = Double.compare(a.average, b.average);
+        return c != 0 ? c : a.rollNumber.compareTo(b.rollNumber);
+    };
+
+    // rank order - best average first, ties in roll number order
+    private static final Comparator<Entry> BY_RANK = (a, b) -> {
+        int c = Double.compare(b.average, a.average);
+        return c != 0 ? c : a.rollNumber.compareTo(b.rollNumber);
+    };
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> byAverage = new TreeSet<>(BY_AVERAGE);
+    private final long[] gradeCounts = new long[GRADE_ORDER.length];
+    private double averageSum;
+    private final PercentHistogram distribution = new PercentHistogram();
+    private final Map<String, PercentHistogram> classDistributions = new TreeMap<>();
+    private final RankTree<Entry> ranking = new RankTree<>(BY_RANK);
+    private final Map<String, RankTree<Entry>> classRankings = new HashMap<>();
+
+    private final StudentManager manager;
+    private final SubjectIndex subjects;
+    private final AssessmentHistory history;
+
+    AnalyticsEngine(StudentManager manager) {
+        this.manager = manager;
+        manager.withWritesPaused(() -> {
+            rebuild();
+            manager.addStudentListener(this);
+        });
+        subjects = new SubjectIndex(manager);
+        history = new AssessmentHistory(manager);
+    }
+
+    public SubjectIndex getSubjectIndex() {
+        return subjects;
+    }
+
+    public AssessmentHistory getHistory() {
+        return history;
+    }
+
+    private synchronized void rebuild() {
+        entries.clear();
+        byAverage.clear();
+        Arrays.fill(gradeCounts, 0);
+        averageSum = 0;
+        distribution.clear();
+        classDistributions.clear();
+        ranking.clear();
+        classRankings.clear();
+        for (Student student : manager.getAllStudents()) {
+            add(student);
+        }
+    }
+
+    @Override
+    public synchronized void studentAdded(Student student) {
+        add(student);
+    }
+
+    @Override
+    public synchronized void studentRemoved(Student student) {
+        Entry old = entries.remove(student.getRollNumber());
+        if (old != null) unlink(old);
+    }
+
+    @Override
+    public synchronized void marksAdded(Student student, int markIndex) {
+        add(student);  // replaces the old entry
+    }
+
+    @Override
+    public synchronized void studentsReloaded() {
+        rebuild();
+    }
+
+    private void add(Student student) {
+        Entry entry = new Entry(student);
+        Entry previous = entries.put(entry.rollNumber, entry);
+        if (previous != null) unlink(previous);
+        byAverage.add(entry);
+        averageSum += entry.average;
+        gradeCounts[entry.gradeIndex]++;
+        if (entry.hasMarks) {
+            distribution.add(entry.average);
+            classDistributions.computeIfAbsent(entry.student.getClassName(), c -> new PercentHistogram())
+                .add(entry.average);
+            ranking.add(entry);
+            classRankings.computeIfAbsent(entry.student.getClassName(), c -> new RankTree<>(BY_RANK)).add(entry);
+        }
+    }
+
+    private void unlink(Entry entry) {
+        byAverage.remove(entry);
+        averageSum -= entry.average;
+        gradeCounts[entry.gradeIndex]--;
+        if (entry.hasMarks) {
+            distribution.remove(entry.average);
+            PercentHistogram forClass = classDistributions.get(entry.student.getClassName());
+            forClass.remove(entry.average);
+            if (forClass.getCount() == 0) classDistributions.remove(entry.student.getClassName());
+            ranking.remove(entry);
+            RankTree<Entry> classRanking = classRankings.get(entry.student.getClassName());
+            classRanking.remove(entry);
+            if (classRanking.isEmpty()) classRankings.remove(entry.student.getClassName());
+        }
+    }
+
+    private static int gradeIndex(String grade) {
+        for (int i = 0; i < GRADE_ORDER.length; i++) {
+            if (GRADE_ORDER[i].equals(grade)) return i;
+        }
+        return GRADE_ORDER.length - 1;
+    }
+
+    public synchronized int getStudentCount() { return entries.size(); }
+
+    public synchronized double getClassAverage() {
+        return entries.isEmpty() ? 0.0 : averageSum / entries.size();
+    }
+
+    public synchronized double getHighestAverage() {
+        return byAverage.isEmpty() ? 0.0 : byAverage.last().average;
+    }
+
+    public synchronized double getLowestAverage() {
+        return byAverage.isEmpty() ? 0.0 : byAverage.first().average;
+    }
+
+    // best k students, highest average first - walks k entries from the top of the set
+    public synchronized List<Student> getTopPerformers(int k) {
+        List<Student> top = new ArrayList<>(Math.min(k, byAverage.size()));
+        Iterator<Entry> it = byAverage.descendingIterator();
+        while (top.size() < k && it.hasNext()) {
+            top.add(it.next().student);
+        }
+        return top;
+    }
+
+    // everyone below the attention threshold, lowest average first
+    public synchronized List<Student> getStudentsNeedingAttention() {
+        // sentinel with the smallest possible roll number, so students at exactly 50% stay out
+        Entry bound = new Entry(null, ATTENTION_THRESHOLD, "", 0, false);
+        SortedSet<Entry> below = byAverage.headSet(bound);
+        List<Student> result = new ArrayList<>(below.size());
+        for (Entry e : below) result.add(e.student);
+        return result;
+    }
+
+    public synchronized long getGradeCount(String grade) {
+        return gradeCounts[gradeIndex(grade)];
+    }
+
+    // Average at quantile q (0.5 = median) over students with marks; NaN if there are none
+    public synchronized double getPercentile(double q) {
+        return distribution.quantile(q);
+    }
+
+    // Same for one class; NaN for an unknown class or one without marks
+    public synchronized double getClassPercentile(String className, double q) {
+        PercentHistogram forClass = classDistributions.get(className);
+        return forClass == null ? Double.NaN : forClass.quantile(q);
+    }
+
+    // classes that have students with marks, sorted
+    public synchronized List<String> getClassNames() {
+        return new ArrayList<>(classDistributions.keySet());
+    }
+
+    public synchronized long getStudentsWithMarks() {
+        return distribution.getCount();
+    }
+
+    public synchronized long getClassStudentsWithMarks(String className) {
+        PercentHistogram forClass = classDistributions.get(className);
+        return forClass == null ? 0 : forClass.getCount();
+    }
+
+    // % of students (with marks) whose average is below this student's; NaN if the
+    // student has no marks
+    public synchronized double getPercentileRank(Student student) {
+        Entry entry = entries.get(student.getRollNumber());
+        return entry == null || !entry.hasMarks ? Double.NaN : distribution.percentileRank(entry.average);
+    }
+
+    // ... within the student's own class
+    public synchronized double getClassPercentileRank(Student student) {
+        Entry entry = entries.get(student.getRollNumber());
+        if (entry == null || !entry.hasMarks) return Double.NaN;
+        return classDistributions.get(student.getClassName()).percentileRank(entry.average);
+    }
+
+    // Rank among students with marks, 1 = best average; students with the same average
+    // share a rank (1, 2, 2, 4). 0 if the student has no marks.
+    public synchronized int getRank(Student student) {
+        Entry entry = entries.get(student.getRollNumber());
+        return entry == null || !entry.hasMarks ? 0 : rankIn(ranking, entry);
+    }
+
+    // ... within the student's own class
+    public synchronized int getClassRank(Student student) {
+        Entry entry = entries.get(student.getRollNumber());
+        if (entry == null || !entry.hasMarks) return 0;
+        return rankIn(classRankings.get(student.getClassName()), entry);
+    }
+
+    private static int rankIn(RankTree<Entry> tree, Entry entry) {
+        return tree.countBefore(e -> e.average > entry.average ? -1 : 1) + 1;  // everyone strictly ahead, plus one
+    }
+
+    // Students in positions from..to of the ranking (1-based, both included), best first.
+    // Positions, not ranks - students sharing a rank are in roll number order.
+    public synchronized List<Student> getStudentsByRank(int from, int to) {
+        return studentsIn(ranking, from, to);
+    }
+
+    // ... within one class; empty for an unknown class or one without marks
+    public synchronized List<Student> getClassStudentsByRank(String className, int from, int to) {
+        RankTree<Entry> classRanking = classRankings.get(className);
+        return classRanking == null ? new ArrayList<>() : studentsIn(classRanking, from, to);
+    }
+
+    // weakest k students with marks, lowest average first
+    public synchronized List<Student> getBottomPerformers(int k) {
+        List<Student> bottom = studentsIn(ranking, ranking.size() - k + 1, ranking.size());
+        Collections.reverse(bottom);
+        return bottom;
+    }
+
+    private static List<Student> studentsIn(RankTree<Entry> tree, int from, int to) {
+        List<Entry> range = tree.range(from - 1, to);
+        List<Student> result = new ArrayList<>(range.size());
+        for (Entry e : range) result.add(e.student);
+        return result;
+    }
+}
@@ -0,0 +1,305 @@
+import java.time.LocalDate;
+import java.util.*;
+
+// Marks by assessment term, kept up to date from StudentManager events - the basis for
+// "how did everyone do in Term 2" and the term filter on the Analytics tab.
+//
+// Marks are grouped into one segment per term (marks entered without a term share one),
+// and each segment remembers the date range of its marks. A term query only reads that
+// term's segment and a date range query only reads segments whose dates overlap it -
+// the rest of the history isn't touched. Segments point at (student, mark index), the
+// marks themselves stay in the students' columns.
+//
+// Per-student trends (trendOf) only need that student's own marks.
+// Synchronized on the history itself.
+class AssessmentHistory implements StudentListener {
+    static final int MOVING_AVERAGE_WINDOW = 3;  // assessments
+    static final double STEADY_SLOPE = 0.5;  // points per 30 days that still count as steady
+
+    interface MarkVisitor {
+        void visit(Student student, int markIndex);
+    }
+
+    // marks of one term
+    private static final class Segment {
+        final int termId;  // Student.NO_TERM for marks without a term
+        int firstDay = Integer.MAX_VALUE, lastDay = Integer.MIN_VALUE;  // dated marks only; not shrunk on removal
+        final Map<String, Postings> byStudent = new LinkedHashMap<>();  // by roll number
+
+        Segment(int termId) {
+            this.termId = termId;
+        }
+
+        void add(Student student, int markIndex) {
+            Postings p = byStudent.computeIfAbsent(student.getRollNumber(), r -> new Postings());
+            p.student = student;  // the most recent object for that roll number
+            p.add(markIndex);
+            int day = student.getEpochDay(markIndex);
+            if (day != Student.NO_DATE) {
+                firstDay = Math.min(firstDay, day);
+                lastDay = Math.max(lastDay, day);
+            }
+        }
+
+        boolean overlaps(int fromDay, int toDay) {
+            return firstDay <= toDay && lastDay >= fromDay;
+        }
+
+        String name() {
+            return termId == Student.NO_TERM ? null : TermTable.nameOf(termId);
+        }
+    }
+
+    private static final class Postings {
+        Student student;
+        int[] marks = new int[4];
+        int count;
+
+        void add(int markIndex) {
+            if (count == marks.length) marks = Arrays.copyOf(marks, count * 2);
+            marks[count++] = markIndex;
+        }
+    }
+
+    // One term (or date range) at a glance - filled in from the matching segments only
+    static final class Summary {
+        final String label;
+        long marks;
+        int students;
+        double mean;
+        LocalDate firstDate, lastDate;  // null if none of the marks are dated
+        // {count, sum}, sorted by name - case-sensitive like SubjectTable, so "maths" and
+        // "Maths" stay two subjects here as everywhere else
+        final Map<String, double[]> subjects = new TreeMap<>();
+        final List<Student> best = new ArrayList<>();  // by average over these marks, best first
+        final List<Double> bestAverages = new ArrayList<>();
+        int below;  // students averaging under AnalyticsEngine.ATTENTION_THRESHOLD here
+
+        Summary(String label) {
+            this.label = label;
+        }
+    }
+
+    // How one student's marks developed over time
+    static final class Trend {
+        final List<String> terms = new ArrayList<>();  // in the order the student was assessed in them
+        final List<double[]> termStats = new ArrayList<>();  // {count, average}
+        int datedMarks;
+        double slopePer30Days = Double.NaN;  // NaN with fewer than two dates
+        double movingAverage = Double.NaN;  // of the last MOVING_AVERAGE_WINDOW dated marks
+
+        String direction() {
+            if (Double.isNaN(slopePer30Days)) return "not enough dated marks";
+            if (slopePer30Days > STEADY_SLOPE) return "improving";
+            if (slopePer30Days < -STEADY_SLOPE) return "declining";
+            return "steady";
+        }
+    }
+
+    private final StudentManager manager;
+    private final Map<Integer, Segment> segments = new HashMap<>();  // by term id
+
+    AssessmentHistory(StudentManager manager) {
+        this.manager = manager;
+        manager.withWritesPaused(() -> {
+            rebuild();
+            manager.addStudentListener(this);
+        });
+    }
+
+    private synchronized void rebuild() {
+        segments.clear();
+        for (Student s : manager.getAllStudents()) {
+            for (int i = 0; i < s.getMarkCount(); i++) add(s, i);
+        }
+    }
+
+    private void add(Student student, int markIndex) {
+        segments.computeIfAbsent(student.getTermId(markIndex), Segment::new).add(student, markIndex);
+    }
+
+    @Override
+    public void studentAdded(Student student) {
+        // new students have no marks yet
+    }
+
+    @Override
+    public synchronized void studentRemoved(Student student) {
+        Set<Integer> terms = new HashSet<>();
+        for (int i = 0; i < student.getMarkCount(); i++) terms.add(student.getTermId(i));
+        for (int termId : terms) {
+            Segment segment = segments.get(termId);
+            if (segment == null) continue;
+            segment.byStudent.remove(student.getRollNumber());
+            if (segment.byStudent.isEmpty()) segments.remove(termId);
+        }
+    }
+
+    @Override
+    public synchronized void marksAdded(Student student, int markIndex) {
+        add(student, markIndex);
+    }
+
+    @Override
+    public synchronized void studentsReloaded() {
+        rebuild();
+    }
+
+    // terms that have marks, earliest first (by their first dated mark, undated ones last)
+    public synchronized List<String> getTerms() {
+        List<Segment> named = new ArrayList<>();
+        for (Segment s : segments.values()) {
+            if (s.termId != Student.NO_TERM) named.add(s);
+        }
+        named.sort(Comparator.<Segment>comparingInt(s -> s.firstDay).thenComparing(Segment::name));
+        List<String> result = new ArrayList<>(named.size());
+        for (Segment s : named) result.add(s.name());
+        return result;
+    }
+
+    // Every mark recorded for this term (reads only that term's segment)
+    public synchronized void forEachMarkInTerm(String term, MarkVisitor visitor) {
+        int id = TermTable.find(term);
+        Segment segment = id < 0 ? null : segments.get(id);
+        if (segment != null) visit(segment, Integer.MIN_VALUE, Integer.MAX_VALUE, true, visitor);
+    }
+
+    // Every dated mark from..to, both included (reads only the segments that overlap)
+    public synchronized void forEachMarkBetween(LocalDate from, LocalDate to, MarkVisitor visitor) {
+        int fromDay = (int) from.toEpochDay(), toDay = (int) to.toEpochDay();
+        for (Segment segment : segments.values()) {
+            if (segment.overlaps(fromDay, toDay)) visit(segment, fromDay, toDay, false, visitor);
+        }
+    }
+
+    private static void visit(Segment segment, int fromDay, int toDay, boolean undated, MarkVisitor visitor) {
+        for (Postings p : segment.byStudent.values()) {
+            for (int i = 0; i < p.count; i++) {
+                int day = p.student.getEpochDay(p.marks[i]);
+                if (day == Student.NO_DATE ? undated : day >= fromDay && day <= toDay) {
+                    visitor.visit(p.student, p.marks[i]);
+                }
+            }
+        }
+    }
+
+    public Summary summarizeTerm(String term, int best) {
+        Summary summary = new Summary(term);
+        Collector collector = new Collector();
+        forEachMarkInTerm(term, collector);
+        return collector.fill(summary, best);
+    }
+
+    public Summary summarizeDates(LocalDate from, LocalDate to, int best) {
+        Summary summary = new Summary(from + " to " + to);
+        Collector collector = new Collector();
+        forEachMarkBetween(from, to, collector);
+        return collector.fill(summary, best);
+    }
+
+    // gathers per-subject and per-student totals while the marks are visited
+    private static final class Collector implements MarkVisitor {
+        final Map<String, double[]> students = new HashMap<>();  // roll -> {count, sum}
+        final Map<String, Student> studentByRoll = new HashMap<>();
+        final Map<String, double[]> subjects = new HashMap<>();
+        long marks;
+        double sum;
+        int firstDay = Integer.MAX_VALUE, lastDay = Integer.MIN_VALUE;
+
+        @Override
+        public void visit(Student student, int markIndex) {
+            double pct = student.getPercentage(markIndex);
+            marks++;
+            sum += pct;
+            double[] st = students.computeIfAbsent(student.getRollNumber(), r -> new double[2]);
+            st[0]++;
+            st[1] += pct;
+            studentByRoll.put(student.getRollNumber(), student);
+            double[] su = subjects.computeIfAbsent(student.getSubject(markIndex), r -> new double[2]);
+            su[0]++;
+            su[1] += pct;
+            int day = student.getEpochDay(markIndex);
+            if (day != Student.NO_DATE) {
+                firstDay = Math.min(firstDay, day);
+                lastDay = Math.max(lastDay, day);
+            }
+        }
+
+        Summary fill(Summary summary, int best) {
+            summary.marks = marks;
+            summary.students = students.size();
+            summary.mean = marks == 0 ? 0.0 : sum / marks;
+            if (firstDay <= lastDay) {
+                summary.firstDate = LocalDate.ofEpochDay(firstDay);
+                summary.lastDate = LocalDate.ofEpochDay(lastDay);
+            }
+            summary.subjects.putAll(subjects);
+            // best few by a bounded heap, so a big term isn't sorted just for the top
+            PriorityQueue<Map.Entry<String, double[]>> top = new PriorityQueue<>(
+                Comparator.comparingDouble((Map.Entry<String, double[]> e) -> e.getValue()[1] / e.getValue()[0])
+                    .thenComparing(Map.Entry::getKey, Comparator.reverseOrder()));
+            for (Map.Entry<String, double[]> e : students.entrySet()) {
+                if (e.getValue()[1] / e.getValue()[0] < AnalyticsEngine.ATTENTION_THRESHOLD) summary.below++;
+                top.add(e);
+                if (top.size() > best) top.poll();
+            }
+            List<Map.Entry<String, double[]>> ordered = new ArrayList<>(top);
+            ordered.sort(top.comparator().reversed());
+            for (Map.Entry<String, double[]> e : ordered) {
+                summary.best.add(studentByRoll.get(e.getKey()));
+                summary.bestAverages.add(e.getValue()[1] / e.getValue()[0]);
+            }
+            return summary;
+        }
+    }
+
+    // Per-term averages, least-squares slope of percentage against date and a moving
+    // average over the most recent dated marks. Undated marks count towards their term
+    // but not the slope or moving average.
+    static Trend trendOf(Student student) {
+        Trend trend = new Trend();
+        int count = student.getMarkCount();
+        Map<String, double[]> byTerm = new LinkedHashMap<>();  // term -> {count, sum, first day}
+        long[] dated = new long[count];  // epoch day << 32 | mark index, sorted into date order
+        for (int i = 0; i < count; i++) {
+            int day = student.getEpochDay(i);
+            String term = student.getTerm(i);
+            if (term != null) {
+                double[] t = byTerm.computeIfAbsent(term, k -> new double[]{0, 0, Integer.MAX_VALUE});
+                t[0]++;
+                t[1] += student.getPercentage(i);
+                if (day != Student.NO_DATE) t[2] = Math.min(t[2], day);
+            }
+            if (day != Student.NO_DATE) dated[trend.datedMarks++] = ((long) day << 32) | i;
+        }
+        List<Map.Entry<String, double[]>> terms = new ArrayList<>(byTerm.entrySet());
+        terms.sort(Comparator.comparingDouble(e -> e.getValue()[2]));  // stable - undated terms keep entry order
+        for (Map.Entry<String, double[]> e : terms) {
+            trend.terms.add(e.getKey());
+            trend.termStats.add(new double[]{e.getValue()[0], e.getValue()[1] / e.getValue()[0]});
+        }
+
+        int n = trend.datedMarks;
+        if (n == 0) return trend;
+        Arrays.sort(dated, 0, n);
+        double sumX = 0, sumY = 0, sumXX = 0, sumXY = 0;
+        int firstDay = (int) (dated[0] >> 32);
+        for (int k = 0; k < n; k++) {
+            double x = (int) (dated[k] >> 32) - firstDay;  // days since the first mark, keeps the sums small
+            double y = student.getPercentage((int) dated[k]);
+            sumX += x;
+            sumY += y;
+            sumXX += x * x;
+            sumXY += x * y;
+        }
+        double denominator = n * sumXX - sumX * sumX;
+        if (n >= 2 && denominator > 0) {
+            trend.slopePer30Days = (n * sumXY - sumX * sumY) / denominator * 30;
+        }
+        int window = Math.min(MOVING_AVERAGE_WINDOW, n);
+        double recent = 0;
+        for (int k = n - window; k < n; k++) recent += student.getPercentage((int) dated[k]);
+        trend.movingAverage = recent / window;
+        return trend;
+    }
+}
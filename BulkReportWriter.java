@@ -0,0 +1,185 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// End-of-term job: one report file per student for the whole roster, either as
+// <roll>.txt files in a folder or as entries in a single zip.
+//
+// Reports are rendered in parallel (parallel streams on the common fork/join pool).
+// Folder mode also writes in parallel - each worker thread encodes straight into its
+// own reusable direct buffer and writes it to a FileChannel. A zip can only be written
+// by one thread, so there the roster is rendered chunk by chunk and the next chunk is
+// rendered while the current one is compressed and written.
+//
+// Safe to call off the EDT; students can keep changing while this runs. Pass a
+// StudentManager.snapshot() to get every report as of one moment; with live students
+// each report is whatever the student looked like when it was rendered.
+class BulkReportWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int ZIP_CHUNK = 1024;  // students rendered ahead of the zip writer
+
+    interface ProgressListener {
+        void progress(int done, int total);  // called from worker threads
+    }
+
+    static final class Result {
+        final int total;
+        int written;
+        long bytes;
+        boolean cancelled;
+
+        Result(int total) { this.total = total; }
+    }
+
+    // one encoder and direct buffer per worker thread, reused for every report it writes
+    private static final class Buffers {
+        final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    static boolean isZip(Path target) {
+        return target.getFileName() != null
+            && target.getFileName().toString().toLowerCase().endsWith(".zip");
+    }
+
+    // Writes into a zip if target ends in .zip, otherwise into the folder target
+    static Result write(ReportGenerator reports, Collection<Student> students, Path target,
+                        ProgressListener progress, BooleanSupplier cancelled) throws IOException {
+        List<Student> sorted = new ArrayList<>(students);
+        sorted.sort(Comparator.comparing(Student::getRollNumber));
+        return isZip(target)
+            ? writeZip(reports, sorted, target, progress, cancelled)
+            : writeFolder(reports, sorted, target, progress, cancelled);
+    }
+
+    // Roll numbers can contain anything - keep file names portable. Cleaning them up can
+    // make two the same ("A/1" and "A_1", or "a1" and "A1" on a case-insensitive disk), so
+    // later ones get "~2", "~3"... ("~" is never left in a cleaned name, so those can't clash
+    // with a real roll number). students must be in a fixed order to get the same names each run.
+    static String[] reportFileNames(List<Student> students) {
+        String[] names = new String[students.size()];
+        Set<String> taken = new HashSet<>();
+        for (int i = 0; i < names.length; i++) {
+            String base = students.get(i).getRollNumber().replaceAll("[^A-Za-z0-9._-]", "_");
+            String name = base;
+            for (int n = 2; !taken.add(name.toLowerCase(Locale.ROOT)); n++) name = base + "~" + n;
+            names[i] = name + ".txt";
+        }
+        return names;
+    }
+
+    private static Result writeFolder(ReportGenerator reports, List<Student> students, Path dir,
+                                      ProgressListener progress, BooleanSupplier cancelled) throws IOException {
+        Files.createDirectories(dir);
+        Result result = new Result(students.size());
+        String[] names = reportFileNames(students);
+        ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+        AtomicInteger done = new AtomicInteger();
+        AtomicLong bytes = new AtomicLong();
+        int step = progressStep(students.size());
+        try {
+            IntStream.range(0, students.size()).parallel().forEach(i -> {
+                if (cancelled.getAsBoolean()) return;  // the rest of the stream just drains
+                Student s = students.get(i);
+                // bypasses the report cache - it's for the interactive views, and every
+                // thread going through its lock would serialize the whole job
+                String report = reports.renderStudentReport(s);
+                try (FileChannel channel = FileChannel.open(dir.resolve(names[i]),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    bytes.addAndGet(encode(report, channel, buffers.get()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                int n = done.incrementAndGet();
+                if (progress != null && (n % step == 0 || n == students.size())) progress.progress(n, students.size());
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        result.written = done.get();
+        result.bytes = bytes.get();
+        result.cancelled = result.written < result.total;
+        return result;
+    }
+
+    private static Result writeZip(ReportGenerator reports, List<Student> students, Path zip,
+                                   ProgressListener progress, BooleanSupplier cancelled) throws IOException {
+        Path parent = zip.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Result result = new Result(students.size());
+        String[] names = reportFileNames(students);
+        boolean complete = false;
+        try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(
+                Channels.newOutputStream(FileChannel.open(zip,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)),
+                BUFFER_SIZE), StandardCharsets.UTF_8)) {
+            CompletableFuture<byte[][]> next = renderAsync(reports, students, 0);
+            for (int from = 0; from < students.size(); from += ZIP_CHUNK) {
+                byte[][] rendered = next.join();
+                next = renderAsync(reports, students, from + ZIP_CHUNK);  // render ahead while we compress
+                if (cancelled.getAsBoolean()) {
+                    result.cancelled = true;
+                    break;
+                }
+                for (int i = 0; i < rendered.length; i++) {
+                    out.putNextEntry(new ZipEntry(names[from + i]));
+                    out.write(rendered[i]);
+                    out.closeEntry();
+                    result.bytes += rendered[i].length;
+                }
+                result.written += rendered.length;
+                if (progress != null) progress.progress(result.written, students.size());
+            }
+            complete = !result.cancelled;
+        } finally {
+            // half a zip is no use to anyone
+            if (!complete) Files.deleteIfExists(zip);
+        }
+        return result;
+    }
+
+    private static CompletableFuture<byte[][]> renderAsync(ReportGenerator reports, List<Student> students, int from) {
+        int to = Math.min(students.size(), from + ZIP_CHUNK);
+        if (from >= to) return CompletableFuture.completedFuture(new byte[0][]);
+        return CompletableFuture.supplyAsync(() -> {
+            byte[][] rendered = new byte[to - from][];
+            Arrays.parallelSetAll(rendered, i ->
+                reports.renderStudentReport(students.get(from + i)).getBytes(StandardCharsets.UTF_8));
+            return rendered;
+        });
+    }
+
+    // UTF-8 encodes text through the thread's direct buffer into the channel; returns bytes written
+    private static long encode(String text, WritableByteChannel channel, Buffers buffers) throws IOException {
+        CharsetEncoder encoder = buffers.encoder.reset();
+        ByteBuffer buffer = buffers.buffer;
+        CharBuffer in = CharBuffer.wrap(text);
+        long written = 0;
+        boolean flushed = false;
+        while (!flushed) {
+            buffer.clear();
+            CoderResult r = encoder.encode(in, buffer, true);
+            if (r.isError()) r.throwException();
+            if (r.isUnderflow()) flushed = encoder.flush(buffer).isUnderflow();
+            buffer.flip();
+            while (buffer.hasRemaining()) written += channel.write(buffer);
+        }
+        return written;
+    }
+
+    // report progress about every 1%, not on every file
+    private static int progressStep(int total) {
+        return Math.max(1, total / 100);
+    }
+}
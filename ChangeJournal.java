@@ -0,0 +1,283 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+// Append-only journal of small changes (add/remove student, add marks).
+// Every mutation used to rewrite the whole student_data.ser - now we just append
+// a tiny record here and fold the journal into the snapshot every now and then.
+//
+// File layout:  [magic int][generation long] then records of
+//               [payload length int][payload bytes][crc32 int]
+// payload = [type byte][fields written with DataOutputStream]
+class ChangeJournal implements Closeable {
+    static final byte ADD_STUDENT = 1;
+    static final byte REMOVE_STUDENT = 2;
+    static final byte ADD_MARKS = 3;  // marks without date or term
+    static final byte ADD_DATED_MARKS = 4;  // ADD_MARKS + epoch day + term ("" for none)
+
+    private static final int MAGIC = 0x53414A31;  // "SAJ1"
+    private static final int HEADER_SIZE = 12;
+    private static final int MAX_RECORD_SIZE = 1 << 20;  // anything bigger is garbage
+
+    // records collect here and hit the file in one write when sync() is called
+    // (or when it fills up) - the persistence worker syncs once per batch of changes
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    // callbacks used when replaying the journal on startup
+    interface Handler {
+        void addStudent(String rollNumber, String name, String className);
+        void removeStudent(String rollNumber);
+        // date is an epoch day or Student.NO_DATE, term is null if there isn't one
+        void addMarks(String rollNumber, String subject, double obtained, double max, int date, String term);
+    }
+
+    private final Path path;
+    private FileChannel channel;
+    private long generation;
+    private int recordCount;
+    private int unsynced;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private ChangeJournal(Path path, FileChannel channel, long generation, int recordCount) {
+        this.path = path;
+        this.channel = channel;
+        this.generation = generation;
+        this.recordCount = recordCount;
+    }
+
+    // Opens the journal for appending on top of the snapshot with the given generation.
+    // Records belonging to that generation are replayed into the handler first; a journal
+    // left over from an older generation was already folded into the snapshot, so it's dropped.
+    // A journal from a newer generation (or one that isn't a journal) means the snapshot
+    // that was loaded isn't the one it belongs to - that's an error, the file is left alone.
+    // With a null handler the records are only validated (used when reopening after an error).
+    static ChangeJournal open(Path path, long snapshotGeneration, Handler handler) throws IOException {
+        FileChannel ch = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int replayed = 0;
+            if (checkHeader(ch, snapshotGeneration)) {
+                long[] result = replay(ch, handler);
+                long goodEnd = result[0];
+                replayed = (int) result[1];
+                // chop off a torn tail (crash mid-append) so new records don't land after garbage
+                if (goodEnd < ch.size()) {
+                    System.err.println("Journal: discarding " + (ch.size() - goodEnd) + " bytes of incomplete data");
+                    ch.truncate(goodEnd);
+                }
+                ch.position(goodEnd);
+            } else {
+                resetChannel(ch, snapshotGeneration);
+            }
+            return new ChangeJournal(path, ch, snapshotGeneration, replayed);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    // Replays the records for this generation without opening the journal for writing -
+    // for read-only stores. Nothing is repaired: a torn tail is just where reading stops
+    // (the app may be in the middle of appending). Returns the number of records replayed.
+    static int replayReadOnly(Path path, long snapshotGeneration, Handler handler) throws IOException {
+        if (!Files.exists(path)) return 0;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (!checkHeader(ch, snapshotGeneration)) return 0;
+            return (int) replay(ch, handler)[1];
+        }
+    }
+
+    // true if the journal belongs to this generation, false if it's empty or already folded
+    // into the snapshot
+    private static boolean checkHeader(FileChannel ch, long snapshotGeneration) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (ch.size() < HEADER_SIZE || !readFully(ch, header, 0)) return false;  // new, or torn before any record
+        if (header.getInt(0) != MAGIC) throw new IOException("Not a change journal");
+        long generation = header.getLong(4);
+        if (generation > snapshotGeneration) {
+            throw new IOException("Journal is for snapshot generation " + generation
+                + " but generation " + snapshotGeneration + " was loaded");
+        }
+        return generation == snapshotGeneration;
+    }
+
+    // returns {end of the last good record, number of records replayed}
+    private static long[] replay(FileChannel ch, Handler handler) throws IOException {
+        long records = 0;
+        long pos = HEADER_SIZE;
+        long size = ch.size();
+        ByteBuffer lenBuf = ByteBuffer.allocate(4);
+        CRC32 crc = new CRC32();
+
+        while (pos + 4 <= size) {
+            lenBuf.clear();
+            if (!readFully(ch, lenBuf, pos)) break;
+            int len = lenBuf.getInt(0);
+            if (len <= 0 || len > MAX_RECORD_SIZE || pos + 4 + len + 4 > size) break;
+
+            ByteBuffer body = ByteBuffer.allocate(len + 4);
+            if (!readFully(ch, body, pos + 4)) break;
+            crc.reset();
+            crc.update(body.array(), 0, len);
+            if ((int) crc.getValue() != body.getInt(len)) break;  // corrupt record - stop here
+
+            if (handler != null) {
+                try {
+                    apply(new DataInputStream(new ByteArrayInputStream(body.array(), 0, len)), handler);
+                } catch (EOFException e) {
+                    break;
+                }
+            }
+            pos += 4 + len + 4;
+            records++;
+        }
+        return new long[]{pos, records};
+    }
+
+    private static void apply(DataInputStream in, Handler handler) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case ADD_STUDENT:
+                handler.addStudent(in.readUTF(), in.readUTF(), in.readUTF());
+                break;
+            case REMOVE_STUDENT:
+                handler.removeStudent(in.readUTF());
+                break;
+            case ADD_MARKS:
+                handler.addMarks(in.readUTF(), in.readUTF(), in.readDouble(), in.readDouble(), Student.NO_DATE, null);
+                break;
+            case ADD_DATED_MARKS: {
+                String rollNumber = in.readUTF(), subject = in.readUTF();
+                double obtained = in.readDouble(), max = in.readDouble();
+                int date = in.readInt();
+                String term = in.readUTF();
+                handler.addMarks(rollNumber, subject, obtained, max, date, term.isEmpty() ? null : term);
+                break;
+            }
+            default:
+                throw new IOException("Unknown journal record type: " + type);
+        }
+    }
+
+    private static boolean readFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, pos + buf.position());
+            if (n < 0) return false;
+        }
+        return true;
+    }
+
+    private static void resetChannel(FileChannel ch, long generation) throws IOException {
+        ch.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putLong(generation).flip();
+        while (header.hasRemaining()) ch.write(header, header.position());
+        ch.force(true);
+        ch.position(HEADER_SIZE);
+    }
+
+    public void appendAddStudent(String rollNumber, String name, String className) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ADD_STUDENT);
+        out.writeUTF(rollNumber);
+        out.writeUTF(name);
+        out.writeUTF(className);
+        append(bytes);
+    }
+
+    public void appendRemoveStudent(String rollNumber) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(REMOVE_STUDENT);
+        out.writeUTF(rollNumber);
+        append(bytes);
+    }
+
+    // undated marks keep the old, shorter record
+    public void appendAddMarks(String rollNumber, String subject, double obtained, double max,
+                               int date, String term) throws IOException {
+        boolean dated = date != Student.NO_DATE || term != null;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(dated ? ADD_DATED_MARKS : ADD_MARKS);
+        out.writeUTF(rollNumber);
+        out.writeUTF(subject);
+        out.writeDouble(obtained);
+        out.writeDouble(max);
+        if (dated) {
+            out.writeInt(date);
+            out.writeUTF(term == null ? "" : term);
+        }
+        append(bytes);
+    }
+
+    // Records are buffered - nothing is durable until sync() is called
+    private void append(ByteArrayOutputStream payload) throws IOException {
+        int len = payload.size();
+        byte[] data = payload.toByteArray();
+        crc.reset();
+        crc.update(data, 0, len);
+
+        if (writeBuffer.remaining() < 4 + len + 4) {
+            writeOut();
+        }
+        if (writeBuffer.remaining() < 4 + len + 4) {
+            // bigger than the whole buffer - write it directly
+            ByteBuffer record = ByteBuffer.allocate(4 + len + 4);
+            record.putInt(len).put(data).putInt((int) crc.getValue()).flip();
+            while (record.hasRemaining()) PerformanceMetrics.JOURNAL_BYTES.add(channel.write(record));
+        } else {
+            writeBuffer.putInt(len).put(data).putInt((int) crc.getValue());
+        }
+        recordCount++;
+        unsynced++;
+    }
+
+    private void writeOut() throws IOException {
+        writeBuffer.flip();
+        try {
+            while (writeBuffer.hasRemaining()) PerformanceMetrics.JOURNAL_BYTES.add(channel.write(writeBuffer));
+        } finally {
+            writeBuffer.compact();
+        }
+    }
+
+    // One write + one fsync for everything appended since the last call
+    public void sync() throws IOException {
+        if (unsynced == 0) return;
+        long start = System.nanoTime();
+        writeOut();
+        channel.force(false);
+        unsynced = 0;
+        PerformanceMetrics.JOURNAL_SYNC.recordSince(start);
+    }
+
+    // Called after a snapshot with the new generation has been safely written -
+    // everything in here is now part of that snapshot.
+    public void reset(long newGeneration) throws IOException {
+        writeBuffer.clear();  // anything still buffered is covered by the snapshot too
+        resetChannel(channel, newGeneration);
+        generation = newGeneration;
+        recordCount = 0;
+        unsynced = 0;
+    }
+
+    public int getRecordCount() { return recordCount; }
+    public long getGeneration() { return generation; }
+    public Path getPath() { return path; }
+
+    @Override
+    public void close() throws IOException {
+        if (channel == null) return;
+        try {
+            sync();
+        } finally {
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+// Bulk import of students and marks from a CSV file (end-of-term exam sheets).
+//
+// Expected columns:  roll, name, class [, subject, marks, maxMarks [, term, date]]
+// A row with only the first three columns just creates the student. A row with a subject
+// also adds a mark; name/class can be left empty for students that already exist.
+// Term and date (YYYY-MM-DD) are optional and can be empty.
+// A first line starting with "roll" is treated as a header. Quoted fields ("a, b") are
+// supported, but a field can't span multiple lines.
+//
+// The file is read in chunks of lines; each chunk is parsed/validated in parallel and
+// only the compact parsed rows are kept. Applying the rows to StudentManager happens
+// separately as one batch, which is persisted once at the end.
+class CsvImporter {
+    private static final int CHUNK_LINES = 16_384;
+    private static final int MAX_REPORTED_REJECTS = 1000;  // keep the report readable
+
+    interface ProgressListener {
+        void progress(long bytesRead, long totalBytes);
+    }
+
+    static final class Row {
+        final long line;
+        final String rollNumber, name, className, subject;
+        final double obtained, max;
+        final String term;  // null if not given
+        final LocalDate date;  // null if not given
+
+        Row(long line, String rollNumber, String name, String className,
+            String subject, double obtained, double max, String term, LocalDate date) {
+            this.line = line;
+            this.rollNumber = rollNumber;
+            this.name = name;
+            this.className = className;
+            this.subject = subject;
+            this.obtained = obtained;
+            this.max = max;
+            this.term = term;
+            this.date = date;
+        }
+
+        boolean hasMark() { return subject != null; }
+    }
+
+    static final class Reject {
+        final long line;
+        final String reason;
+        Reject(long line, String reason) { this.line = line; this.reason = reason; }
+
+        @Override
+        public String toString() { return "Line " + line + ": " + reason; }
+    }
+
+    static final class Result {
+        final List<Row> rows = new ArrayList<>();
+        final List<Reject> rejected = new ArrayList<>();  // first MAX_REPORTED_REJECTS only
+        long rejectedCount;
+        long studentsAdded, marksAdded;
+        boolean cancelled;
+
+        void reject(long line, String reason) {
+            rejectedCount++;
+            if (rejected.size() < MAX_REPORTED_REJECTS) {
+                rejected.add(new Reject(line, reason));
+            }
+        }
+    }
+
+    // either a parsed row or the reason the line was rejected
+    private static final class Parsed {
+        final long line;
+        final Row row;
+        final String error;
+        Parsed(long line, Row row, String error) { this.line = line; this.row = row; this.error = error; }
+    }
+
+    // Reads and validates the whole file. Safe to call off the EDT - doesn't touch StudentManager.
+    static Result parse(Path file, ProgressListener progress, BooleanSupplier cancelled) throws IOException {
+        Result result = new Result();
+        long total = Files.size(file);
+        try (CountingInputStream counter = new CountingInputStream(Files.newInputStream(file));
+             BufferedReader reader = new BufferedReader(
+                 new InputStreamReader(counter, StandardCharsets.UTF_8), 1 << 16)) {
+            List<String> chunk = new ArrayList<>(CHUNK_LINES);
+            long nextLine = 1;
+            boolean first = true;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (first) {
+                    first = false;
+                    if (line.startsWith("\uFEFF")) line = line.substring(1);  // Excel likes to add a BOM
+                    if (line.trim().toLowerCase().startsWith("roll")) {
+                        nextLine++;
+                        continue;  // header
+                    }
+                }
+                chunk.add(line);
+                if (chunk.size() == CHUNK_LINES) {
+                    parseChunk(chunk, nextLine, result);
+                    nextLine += chunk.size();
+                    chunk.clear();
+                    if (progress != null) progress.progress(counter.count, total);
+                    if (cancelled.getAsBoolean()) {
+                        result.cancelled = true;
+                        return result;
+                    }
+                }
+            }
+            parseChunk(chunk, nextLine, result);
+            if (progress != null) progress.progress(total, total);
+        }
+        return result;
+    }
+
+    private static void parseChunk(List<String> lines, long firstLine, Result result) {
+        Parsed[] parsed = new Parsed[lines.size()];
+        IntStream.range(0, lines.size()).parallel()
+            .forEach(i -> parsed[i] = parseLine(lines.get(i), firstLine + i));
+        for (Parsed p : parsed) {
+            if (p == null) continue;  // blank line
+            if (p.row != null) result.rows.add(p.row);
+            else result.reject(p.line, p.error);
+        }
+    }
+
+    private static Parsed parseLine(String line, long lineNo) {
+        if (line.trim().isEmpty()) return null;
+        List<String> f = splitCsv(line);
+        if (f == null) return reject(lineNo, "unterminated quote");
+        if (f.size() != 3 && f.size() != 6 && f.size() != 8) {
+            return reject(lineNo, "expected 3, 6 or 8 columns, found " + f.size());
+        }
+        String roll = f.get(0), name = f.get(1), className = f.get(2);
+        if (roll.isEmpty()) return reject(lineNo, "roll number is required");
+        if (f.size() == 3) {
+            if (name.isEmpty() || className.isEmpty()) return reject(lineNo, "name and class are required");
+            return new Parsed(lineNo, new Row(lineNo, roll, name, className, null, 0, 0, null, null), null);
+        }
+
+        String subject = f.get(3);
+        if (subject.isEmpty()) return reject(lineNo, "subject name is required");
+        double marks, maxMarks;
+        try {
+            marks = Double.parseDouble(f.get(4));
+            maxMarks = Double.parseDouble(f.get(5));
+        } catch (NumberFormatException e) {
+            return reject(lineNo, "marks must be numbers");
+        }
+        if (!StudentManager.isValidMarks(marks, maxMarks)) {
+            return reject(lineNo, "invalid marks, need 0 ≤ marks ≤ max marks");
+        }
+        String term = null;
+        LocalDate date = null;
+        if (f.size() == 8) {
+            term = f.get(6).isEmpty() ? null : f.get(6);
+            if (!f.get(7).isEmpty()) {
+                try {
+                    date = LocalDate.parse(f.get(7));
+                } catch (DateTimeParseException e) {
+                    return reject(lineNo, "date must be YYYY-MM-DD");
+                }
+            }
+        }
+        return new Parsed(lineNo, new Row(lineNo, roll, name, className, subject, marks, maxMarks, term, date), null);
+    }
+
+    private static Parsed reject(long lineNo, String reason) {
+        return new Parsed(lineNo, null, reason);
+    }
+
+    // simple RFC 4180-ish split of one line; returns null on an unterminated quote
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(6);
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        cur.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    cur.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(cur.toString().trim());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        if (quoted) return null;
+        fields.add(cur.toString().trim());
+        return fields;
+    }
+
+    // Applies parsed rows as one batch (StudentManager.runBatch - other changes wait for it).
+    // Safe to call off the EDT. Rows for unknown students without a name/class are rejected
+    // here, since that depends on what's already in the store.
+    static void apply(StudentManager manager, Result result) {
+        manager.runBatch(() -> {
+            for (Row row : result.rows) {
+                if (manager.getStudent(row.rollNumber) == null) {
+                    if (row.name.isEmpty() || row.className.isEmpty()) {
+                        result.reject(row.line, "unknown roll number " + row.rollNumber
+                            + " (name and class are needed to create it)");
+                        continue;
+                    }
+                    manager.addStudent(new Student(row.rollNumber, row.name, row.className));
+                    result.studentsAdded++;
+                }
+                if (row.hasMark()) {
+                    manager.addMarks(row.rollNumber, row.subject, row.obtained, row.max, row.date, row.term);
+                    result.marksAdded++;
+                }
+            }
+        });
+        // rejects from parse and apply are interleaved - put them back in file order
+        result.rejected.sort(Comparator.comparingLong(r -> r.line));
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) { super(in); }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
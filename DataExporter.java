@@ -0,0 +1,335 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+// Export of marks and analytics to CSV or JSON, for spreadsheets and other tools.
+//
+//   MARKS     one row per mark: roll, name, class, subject, marks, maxMarks, term, date
+//             (the CSV is exactly what CsvImporter reads, so it can be imported again;
+//             students without marks get a roll/name/class row)
+//   STUDENTS  one row per student: marks, average, grade, rank overall and in the class
+//   SUBJECTS  one row per subject: entries, students, mean, median, min, max, std dev
+//
+// Rows are streamed straight from the students' mark columns: each row is appended to
+// a small reusable StringBuilder, encoded into one direct buffer and written to a
+// FileChannel whenever the buffer fills up. Nothing builds the whole file (or a table
+// model) in memory - the only per-student memory is the list of references sorted by
+// roll number, so a few million marks export in the same few KB as a hundred.
+//
+// Safe to call off the EDT. Pass a StudentManager.snapshot() to export the roster as of
+// one moment; ranks and subject stats come from the live AnalyticsEngine.
+// Files are written next to the target and renamed into place at the end, so a
+// cancelled or failed export leaves no half-written file (and keeps an older one).
+class DataExporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int ROW_FLUSH = 8 * 1024;  // chars gathered before encoding
+
+    enum Content { MARKS, STUDENTS, SUBJECTS }
+
+    enum Format { CSV, JSON }
+
+    interface ProgressListener {
+        void progress(int done, int total);
+    }
+
+    static final class Result {
+        final int total;  // students (subjects for SUBJECTS)
+        long rows;
+        long bytes;
+        boolean cancelled;
+
+        Result(int total) { this.total = total; }
+    }
+
+    // JSON for *.json, CSV for anything else
+    static Format formatOf(Path target) {
+        return target.getFileName() != null
+            && target.getFileName().toString().toLowerCase().endsWith(".json") ? Format.JSON : Format.CSV;
+    }
+
+    static Result export(Collection<Student> students, AnalyticsEngine analytics, Content content,
+                         Path target, ProgressListener progress, BooleanSupplier cancelled) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        Path parent = absolute.getParent();
+        if (parent != null) Files.createDirectories(parent);
+        Path partial = absolute.resolveSibling(absolute.getFileName() + ".part");
+        boolean complete = false;
+        try {
+            Result result;
+            try (FileChannel channel = FileChannel.open(partial,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                result = export(students, analytics, content, formatOf(target), channel, progress, cancelled);
+            }
+            if (!result.cancelled) {
+                try {
+                    Files.move(partial, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(partial, absolute, StandardCopyOption.REPLACE_EXISTING);
+                }
+                complete = true;
+            }
+            return result;
+        } finally {
+            if (!complete) Files.deleteIfExists(partial);
+        }
+    }
+
+    // Streams into any channel (a file, stdout, an HTTP response); doesn't close it
+    static Result export(Collection<Student> students, AnalyticsEngine analytics, Content content, Format format,
+                         WritableByteChannel channel, ProgressListener progress, BooleanSupplier cancelled) throws IOException {
+        Sink out = new Sink(channel, format);
+        Result result;
+        if (content == Content.SUBJECTS) {
+            result = writeSubjects(analytics, out, cancelled);
+        } else {
+            List<Student> sorted = new ArrayList<>(students);
+            sorted.sort(Comparator.comparing(Student::getRollNumber));
+            result = new Result(sorted.size());
+            out.begin(content == Content.MARKS
+                ? new String[]{"roll", "name", "class", "subject", "marks", "maxMarks", "term", "date"}
+                : new String[]{"roll", "name", "class", "marks", "average", "grade", "rank", "classRank"});
+            int step = Math.max(1, sorted.size() / 100);  // progress about every 1%
+            for (int n = 0; n < sorted.size(); n++) {
+                if (n % step == 0) {
+                    if (cancelled.getAsBoolean()) {
+                        result.cancelled = true;
+                        break;
+                    }
+                    if (progress != null) progress.progress(n, sorted.size());
+                }
+                Student s = sorted.get(n);
+                if (content == Content.MARKS) writeMarks(s, out);
+                else writeStudent(s, analytics, out);
+            }
+            if (!result.cancelled && progress != null) progress.progress(sorted.size(), sorted.size());
+        }
+        out.end();
+        result.rows = out.rows;
+        result.bytes = out.bytes;
+        return result;
+    }
+
+    private static void writeMarks(Student s, Sink out) throws IOException {
+        int count = s.getMarkCount();  // marks are only ever appended, so these indexes stay valid
+        if (count == 0) {
+            out.row();
+            out.text(s.getRollNumber()).text(s.getName()).text(s.getClassName());
+            if (out.format == Format.JSON) out.none().none().none().none().none();
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            out.row();
+            out.text(s.getRollNumber()).text(s.getName()).text(s.getClassName()).text(s.getSubject(i))
+                .exact(s.getMarksObtained(i)).exact(s.getMaxMarks(i));
+            String term = s.getTerm(i);
+            LocalDate date = s.getDate(i);
+            if (term == null) out.none();
+            else out.text(term);
+            if (date == null) out.none();
+            else out.text(date.toString());
+        }
+    }
+
+    private static void writeStudent(Student s, AnalyticsEngine analytics, Sink out) throws IOException {
+        int count = s.getMarkCount();
+        out.row();
+        out.text(s.getRollNumber()).text(s.getName()).text(s.getClassName()).integer(count);
+        if (count == 0) {
+            out.none().none();
+        } else {
+            out.rounded(s.getAverageScore()).text(s.getGrade());
+        }
+        int rank = analytics.getRank(s), classRank = analytics.getClassRank(s);
+        if (rank == 0) out.none();
+        else out.integer(rank);
+        if (classRank == 0) out.none();
+        else out.integer(classRank);
+    }
+
+    // one row per subject - few enough that the stats are just read from the index
+    private static Result writeSubjects(AnalyticsEngine analytics, Sink out, BooleanSupplier cancelled) throws IOException {
+        List<SubjectIndex.SubjectStats> subjects = analytics.getSubjectIndex().getAllStats();
+        Result result = new Result(subjects.size());
+        out.begin(new String[]{"subject", "entries", "students", "mean", "median", "min", "max", "stdDev"});
+        for (SubjectIndex.SubjectStats stats : subjects) {
+            if (cancelled.getAsBoolean()) {
+                result.cancelled = true;
+                break;
+            }
+            out.row();
+            out.text(stats.getSubject()).integer(stats.getCount()).integer(stats.getStudentCount())
+                .rounded(stats.getMean()).rounded(stats.getMedian()).rounded(stats.getMin())
+                .rounded(stats.getMax()).rounded(stats.getStdDev());
+        }
+        return result;
+    }
+
+    // Writes rows as CSV lines or as objects of one JSON array. Rows are gathered in a
+    // reusable StringBuilder and encoded through one direct buffer into the channel.
+    private static final class Sink {
+        final WritableByteChannel channel;
+        final Format format;
+        final StringBuilder line = new StringBuilder(ROW_FLUSH + 1024);
+        final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        String[] columns;
+        int column;
+        long rows, bytes;
+
+        Sink(WritableByteChannel channel, Format format) {
+            this.channel = channel;
+            this.format = format;
+        }
+
+        void begin(String[] columns) {
+            this.columns = columns;
+            if (format == Format.JSON) {
+                line.append('[');
+            } else {
+                for (int i = 0; i < columns.length; i++) {
+                    if (i > 0) line.append(',');
+                    line.append(columns[i]);
+                }
+            }
+        }
+
+        void row() throws IOException {
+            if (format == Format.JSON) {
+                if (rows > 0) line.append('}');
+                line.append(rows > 0 ? ",\n{" : "\n{");
+            } else {
+                line.append('\n');
+            }
+            rows++;
+            column = 0;
+            if (line.length() >= ROW_FLUSH) drain(false);
+        }
+
+        void end() throws IOException {
+            if (format == Format.JSON) line.append(rows > 0 ? "}\n]\n" : "]\n");
+            else line.append('\n');
+            drain(true);
+        }
+
+        // starts the next field: separator, and the key for JSON
+        private StringBuilder field() {
+            if (format == Format.JSON) {
+                if (column > 0) line.append(',');
+                line.append('"').append(columns[column]).append("\":");
+            } else if (column > 0) {
+                line.append(',');
+            }
+            column++;
+            return line;
+        }
+
+        Sink text(String value) {
+            StringBuilder out = field();
+            if (format == Format.JSON) json(out, value);
+            else csv(out, value);
+            return this;
+        }
+
+        // empty in CSV, null in JSON
+        Sink none() {
+            StringBuilder out = field();
+            if (format == Format.JSON) out.append("null");
+            return this;
+        }
+
+        Sink integer(long value) {
+            field().append(value);
+            return this;
+        }
+
+        // marks as entered - whole numbers without the ".0"
+        Sink exact(double value) {
+            if (!Double.isFinite(value)) return none();
+            if (value == Math.rint(value) && Math.abs(value) < 1e15) field().append((long) value);
+            else field().append(value);
+            return this;
+        }
+
+        // averages and the like, two decimals
+        Sink rounded(double value) {
+            return exact(Double.isFinite(value) ? Math.round(value * 100) / 100.0 : value);
+        }
+
+        private static void csv(StringBuilder out, String value) {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            // leading/trailing spaces would be trimmed on import
+            if (!quote && !value.isEmpty()) {
+                quote = value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ';
+            }
+            if (!quote) {
+                out.append(value);
+                return;
+            }
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') out.append('"');
+                out.append(c);
+            }
+            out.append('"');
+        }
+
+        private static void json(StringBuilder out, String value) {
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"': out.append("\\\""); break;
+                    case '\\': out.append("\\\\"); break;
+                    case '\n': out.append("\\n"); break;
+                    case '\r': out.append("\\r"); break;
+                    case '\t': out.append("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            out.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 15, 16));
+                        } else {
+                            out.append(c);
+                        }
+                }
+            }
+            out.append('"');
+        }
+
+        // encodes what's gathered so far into the buffer, writing the buffer out whenever
+        // it fills; last = also flush the encoder and the buffer
+        private void drain(boolean last) throws IOException {
+            // a surrogate pair split at the end waits for the next row
+            int end = line.length();
+            if (!last && end > 0 && Character.isHighSurrogate(line.charAt(end - 1))) end--;
+            CharBuffer in = CharBuffer.wrap(line, 0, end);
+            while (true) {
+                CoderResult r = encoder.encode(in, buffer, last);
+                if (r.isError()) r.throwException();
+                if (r.isUnderflow()) break;
+                writeBuffer();
+            }
+            line.delete(0, end);
+            if (last) {
+                while (encoder.flush(buffer).isOverflow()) writeBuffer();
+                writeBuffer();
+                encoder.reset();
+            }
+        }
+
+        private void writeBuffer() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) bytes += channel.write(buffer);
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+import javax.swing.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Gets StudentManager changes into a Swing table model on the EDT, in order.
+// A change made on the EDT is applied right away; one from another thread (imports, the
+// API server) is forwarded with invokeLater as the same small update. Only when more than
+// BURST of those are waiting is the rest dropped for one full reload.
+// Reloads read the manager with writes paused and bump an epoch, so a forwarded change
+// that's already in the reloaded rows is skipped rather than applied twice.
+class EdtUpdates {
+    private static final int BURST = 1000;  // waiting changes before one reload is cheaper
+
+    private final StudentManager manager;
+    private final Runnable loadRows;  // the model's rebuild, run with writes paused
+    private final Runnable rowsReloaded;  // and its table event afterwards
+    private final AtomicInteger waiting = new AtomicInteger();  // forwarded, not run yet
+    private final AtomicBoolean reloadQueued = new AtomicBoolean();
+    private volatile int epoch;  // reloads so far - only the EDT bumps it
+
+    EdtUpdates(StudentManager manager, Runnable loadRows, Runnable rowsReloaded) {
+        this.manager = manager;
+        this.loadRows = loadRows;
+        this.rowsReloaded = rowsReloaded;
+    }
+
+    // Called from a StudentListener event, on whichever thread made the change
+    void apply(Runnable change) {
+        if (reloadQueued.get()) return;  // the queued reload reads it anyway
+        // on the EDT it can go straight in, unless earlier changes are still on their way
+        if (SwingUtilities.isEventDispatchThread() && waiting.get() == 0) {
+            change.run();
+            return;
+        }
+        if (waiting.incrementAndGet() > BURST) {
+            waiting.decrementAndGet();
+            queueReload();
+            return;
+        }
+        int seen = epoch;
+        SwingUtilities.invokeLater(() -> {
+            waiting.decrementAndGet();
+            if (epoch == seen) change.run();
+        });
+    }
+
+    // one reload on the EDT for any number of calls
+    void queueReload() {
+        if (reloadQueued.compareAndSet(false, true)) SwingUtilities.invokeLater(this::reload);
+    }
+
+    // On the EDT. A reload asked for while a bulk import runs is dropped - the import's
+    // studentsReloaded() queues a new one when it's done. The flag is cleared before trying,
+    // never after: the batch may have called queueReload() in between, and clearing it then
+    // would swallow that reload.
+    void reload() {
+        reloadQueued.set(false);
+        boolean loaded = manager.tryWithWritesPaused(() -> {
+            epoch++;
+            loadRows.run();
+        });
+        if (loaded) rowsReloaded.run();
+    }
+}
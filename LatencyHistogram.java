@@ -0,0 +1,89 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histogram for the diagnostics - log-scale buckets in microseconds, each
+// power of two split into 8 linear steps, so any percentile is within 12.5% of the
+// real value while the whole thing is a fixed array of ~500 counters.
+// Recording is lock-free and can happen from any thread.
+class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() { return name; }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB) return (int) Math.max(0, micros);
+        int exp = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exp - SUB_BITS)) & (SUB - 1);
+        return (exp - SUB_BITS + 1) * SUB + sub;
+    }
+
+    // smallest value that lands in the bucket
+    static long lowerBound(int bucket) {
+        if (bucket < SUB) return bucket;
+        int exp = bucket / SUB + SUB_BITS - 1;
+        return (long) (SUB + bucket % SUB) << (exp - SUB_BITS);
+    }
+
+    public void record(long nanos) {
+        long micros = nanos / 1000;
+        counts.incrementAndGet(bucketOf(micros));
+        count.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    // usual pattern:  long start = System.nanoTime(); ...; histogram.recordSince(start);
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() { return count.sum(); }
+
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : totalMicros.sum() / 1000.0 / n;
+    }
+
+    public double getMaxMillis() { return maxMicros.get() / 1000.0; }
+
+    // upper edge of the bucket holding the q-th quantile (0..1), so tails aren't understated
+    public double getPercentileMillis(double q) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0.0;
+        long target = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                long upper = i + 1 < BUCKETS ? lowerBound(i + 1) : lowerBound(i);
+                return Math.min(upper, maxMicros.get()) / 1000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.reset();
+        totalMicros.reset();
+        maxMicros.set(0);
+    }
+}
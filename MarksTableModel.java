@@ -0,0 +1,150 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.*;
+
+// Marks tab table - one row per mark, stored as (student, mark index) pairs so no
+// per-row Object[] or formatted strings are kept around. Adding a mark appends one
+// row and fires a single insert event instead of rebuilding the whole table.
+// Changes made on other threads are passed over to the EDT by EdtUpdates.
+class MarksTableModel extends AbstractTableModel implements StudentListener {
+    static final int ROLL = 0, NAME = 1, SUBJECT = 2, OBTAINED = 3, MAX = 4, PERCENTAGE = 5, TERM = 6, DATE = 7;
+    private static final String[] COLUMNS = {"Roll No", "Name", "Subject", "Marks", "Max Marks", "Percentage", "Term", "Date"};
+
+    private final StudentManager manager;
+    private final List<Student> rowStudents = new ArrayList<>();
+    private int[] rowMarks = new int[64];
+    private final EdtUpdates updates;
+
+    MarksTableModel(StudentManager manager) {
+        this.manager = manager;
+        this.updates = new EdtUpdates(manager, this::loadRows, this::fireTableDataChanged);
+        manager.withWritesPaused(() -> {
+            loadRows();
+            manager.addStudentListener(this);
+        });
+    }
+
+    // full rebuild - only for the Refresh button, normal changes arrive as events
+    public void reload() {
+        updates.reload();
+    }
+
+    private void loadRows() {
+        long start = System.nanoTime();
+        rowStudents.clear();
+        // the rows only ever show marks that exist, and those never change - so frozen
+        // students from the snapshot do, and later marks arrive as events
+        for (Student s : manager.snapshot()) {
+            for (int i = 0; i < s.getMarkCount(); i++) {
+                appendRow(s, i);
+            }
+        }
+        PerformanceMetrics.TABLE_RELOAD.recordSince(start);
+    }
+
+    private void appendRow(Student student, int markIndex) {
+        int row = rowStudents.size();
+        if (row == rowMarks.length) {
+            rowMarks = Arrays.copyOf(rowMarks, row * 2);
+        }
+        rowStudents.add(student);
+        rowMarks[row] = markIndex;
+    }
+
+    @Override
+    public void studentAdded(Student student) {
+        updates.apply(() -> addStudentRows(student));
+    }
+
+    @Override
+    public void studentRemoved(Student student) {
+        updates.apply(() -> removeStudentRows(student));
+    }
+
+    @Override
+    public void marksAdded(Student student, int markIndex) {
+        updates.apply(() -> addMarkRow(student, markIndex));
+    }
+
+    @Override
+    public void studentsReloaded() {
+        updates.queueReload();
+    }
+
+    // The row changes themselves, on the EDT
+
+    private void addStudentRows(Student student) {
+        // a new student has no marks yet, so no rows
+        int first = rowStudents.size();
+        for (int i = 0; i < student.getMarkCount(); i++) appendRow(student, i);
+        if (rowStudents.size() > first) fireTableRowsInserted(first, rowStudents.size() - 1);
+    }
+
+    private void removeStudentRows(Student student) {
+        // compact the rows in one pass, remembering which rows went away
+        int write = 0, firstRemoved = -1, lastRemoved = -1, removed = 0;
+        for (int read = 0; read < rowStudents.size(); read++) {
+            Student s = rowStudents.get(read);
+            if (s.getRollNumber().equals(student.getRollNumber())) {  // rows may hold a snapshot copy
+                if (firstRemoved < 0) firstRemoved = read;
+                lastRemoved = read;
+                removed++;
+                continue;
+            }
+            rowStudents.set(write, s);
+            rowMarks[write] = rowMarks[read];
+            write++;
+        }
+        if (removed == 0) return;
+        rowStudents.subList(write, rowStudents.size()).clear();
+        if (lastRemoved - firstRemoved + 1 == removed) {
+            fireTableRowsDeleted(firstRemoved, lastRemoved);  // the usual case - one block of rows
+        } else {
+            fireTableDataChanged();
+        }
+    }
+
+    private void addMarkRow(Student student, int markIndex) {
+        int row = rowStudents.size();
+        appendRow(student, markIndex);
+        fireTableRowsInserted(row, row);
+    }
+
+    @Override
+    public int getRowCount() { return rowStudents.size(); }
+
+    @Override
+    public int getColumnCount() { return COLUMNS.length; }
+
+    @Override
+    public String getColumnName(int column) { return COLUMNS[column]; }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column >= OBTAINED && column <= PERCENTAGE ? Double.class : String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Student s = rowStudents.get(row);
+        int m = rowMarks[row];
+        switch (column) {
+            case ROLL: return s.getRollNumber();
+            case NAME: return s.getName();
+            case SUBJECT: return s.getSubject(m);
+            case OBTAINED: return s.getMarksObtained(m);
+            case MAX: return s.getMaxMarks(m);
+            case PERCENTAGE: return s.getPercentage(m);
+            case TERM: return s.getTerm(m);
+            case DATE: {
+                java.time.LocalDate date = s.getDate(m);
+                return date == null ? null : date.toString();  // ISO dates sort right as text
+            }
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+// Small file listing the per-class partition files that make up the current
+// snapshot. Each partition is an ordinary SnapshotFile holding the students of
+// one class; the manifest's generation is what the journal is checked against.
+//
+// Partition files are never overwritten - a rewritten partition gets a new file
+// name (its generation is in the name) and the manifest is switched over to it
+// with an atomic rename, so a crash mid-save leaves the old manifest and all the
+// files it points to intact.
+//
+// Layout (DataOutputStream):  magic, version, generation, nextPartitionId, count,
+//                             then per partition: id, className, fileName
+class PartitionManifest {
+    private static final int MAGIC = 0x53415031;  // "SAP1"
+    private static final int VERSION = 1;
+
+    static final class Entry {
+        final int id;
+        final String className;
+        final String fileName;  // relative to the partitions directory
+
+        Entry(int id, String className, String fileName) {
+            this.id = id;
+            this.className = className;
+            this.fileName = fileName;
+        }
+    }
+
+    final long generation;
+    final int nextPartitionId;
+    final List<Entry> entries;
+
+    PartitionManifest(long generation, int nextPartitionId, List<Entry> entries) {
+        this.generation = generation;
+        this.nextPartitionId = nextPartitionId;
+        this.entries = entries;
+    }
+
+    static String partitionFileName(int id, long generation) {
+        return "p" + id + "-g" + generation + ".snap";
+    }
+
+    static PartitionManifest read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a partition manifest");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported manifest version: " + version);
+            long generation = in.readLong();
+            int nextId = in.readInt();
+            int count = in.readInt();
+            if (count < 0) throw new IOException("Partition manifest is corrupt");
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                entries.add(new Entry(in.readInt(), in.readUTF(), in.readUTF()));
+            }
+            return new PartitionManifest(generation, nextId, entries);
+        } catch (EOFException e) {
+            throw new IOException("Partition manifest is truncated");
+        }
+    }
+
+    // temp file + rename, like SnapshotFile.write
+    void write(Path path) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(generation);
+            out.writeInt(nextPartitionId);
+            out.writeInt(entries.size());
+            for (Entry e : entries) {
+                out.writeInt(e.id);
+                out.writeUTF(e.className);
+                out.writeUTF(e.fileName);
+            }
+            out.flush();
+            fos.getFD().sync();
+        }
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.Arrays;
+
+// Fixed-bucket histogram over 0-100% for medians, percentile bands and percentile
+// ranks without sorting anyone. Percentages are bounded, so 0.1% wide buckets
+// (1001 of them, 100% gets its own) are as good as exact for a report that prints
+// two decimals at most, and unlike t-digest style sketches a value can be taken
+// out again when a student's average changes.
+//
+// The counts are kept in a Fenwick tree, so add/remove, "how many below x" and
+// "value at the q-th quantile" are all O(log buckets) - independent of how many
+// students there are. Histograms with the same buckets can be merged by adding counts.
+// Not thread-safe - owners synchronize.
+class PercentHistogram {
+    static final int BUCKETS_PER_PERCENT = 10;
+    static final int BUCKETS = 100 * BUCKETS_PER_PERCENT + 1;
+
+    private final long[] tree = new long[BUCKETS + 1];  // 1-based Fenwick tree over bucket counts
+    private long count;
+
+    static int bucketOf(double pct) {
+        if (!(pct > 0)) return 0;  // also NaN
+        if (pct >= 100) return BUCKETS - 1;
+        return (int) (pct * BUCKETS_PER_PERCENT);
+    }
+
+    public void add(double pct) {
+        update(bucketOf(pct), 1);
+    }
+
+    public void remove(double pct) {
+        update(bucketOf(pct), -1);
+    }
+
+    public void merge(PercentHistogram other) {
+        // Fenwick trees over the same buckets add up node by node
+        for (int i = 1; i <= BUCKETS; i++) tree[i] += other.tree[i];
+        count += other.count;
+    }
+
+    public void clear() {
+        Arrays.fill(tree, 0);
+        count = 0;
+    }
+
+    public long getCount() { return count; }
+
+    private void update(int bucket, long delta) {
+        count += delta;
+        for (int i = bucket + 1; i <= BUCKETS; i += i & -i) tree[i] += delta;
+    }
+
+    // values in buckets [0, bucket)
+    private long countBelowBucket(int bucket) {
+        long sum = 0;
+        for (int i = bucket; i > 0; i -= i & -i) sum += tree[i];
+        return sum;
+    }
+
+    // Percentage of values below pct, counting values in the same bucket as half
+    // (so the middle of a tie is the 50th percentile of it). NaN if empty.
+    public double percentileRank(double pct) {
+        if (count == 0) return Double.NaN;
+        int bucket = bucketOf(pct);
+        long below = countBelowBucket(bucket);
+        long same = countBelowBucket(bucket + 1) - below;
+        return (below + same / 2.0) * 100.0 / count;
+    }
+
+    // Value at quantile q (0..1), e.g. 0.5 for the median - the lower edge of the
+    // bucket holding the ceil(q * count)-th smallest value. NaN if empty.
+    public double quantile(double q) {
+        if (count == 0) return Double.NaN;
+        long target = Math.max(1, (long) Math.ceil(Math.min(1.0, Math.max(0.0, q)) * count));
+        // Fenwick descent: the largest prefix of buckets holding fewer than target values
+        int pos = 0;
+        long remaining = target;
+        for (int step = Integer.highestOneBit(BUCKETS); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next <= BUCKETS && tree[next] < remaining) {
+                pos = next;
+                remaining -= tree[next];
+            }
+        }
+        return (double) pos / BUCKETS_PER_PERCENT;  // pos = index of the bucket we stopped in
+    }
+
+    public double median() {
+        return quantile(0.5);
+    }
+}
@@ -0,0 +1,114 @@
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+// Where the time goes - latency histograms and counters around persistence, table
+// reloads and the report/analytics rendering. Recorded straight from the code paths
+// (these are process-wide, like the threads doing the work), read by the Diagnostics
+// tab and published over JMX for watching a running instance.
+class PerformanceMetrics {
+    static final LatencyHistogram JOURNAL_SYNC = new LatencyHistogram("Journal write + sync");
+    static final LatencyHistogram SNAPSHOT_WRITE = new LatencyHistogram("Snapshot file write");
+    static final LatencyHistogram DATA_LOAD = new LatencyHistogram("Data load (startup)");
+    static final LatencyHistogram ANALYTICS_RENDER = new LatencyHistogram("generateAnalytics");
+    static final LatencyHistogram REPORT_RENDER = new LatencyHistogram("Student report render");
+    static final LatencyHistogram TABLE_RELOAD = new LatencyHistogram("Table reload");
+
+    private static final LatencyHistogram[] ALL = {
+        JOURNAL_SYNC, SNAPSHOT_WRITE, DATA_LOAD, ANALYTICS_RENDER, REPORT_RENDER, TABLE_RELOAD
+    };
+
+    static final LongAdder JOURNAL_BYTES = new LongAdder();
+    static final LongAdder SNAPSHOT_BYTES = new LongAdder();
+    static final LongAdder CHANGES_SAVED = new LongAdder();
+    static final LongAdder SAVE_FAILURES = new LongAdder();
+
+    static final String OBJECT_NAME = "StudentAnalytics:type=Metrics";
+
+    private PerformanceMetrics() {
+    }
+
+    // Publishes the metrics (plus this store's report cache and student count) over JMX.
+    // Only one instance per JVM can be registered - a second call replaces the first.
+    static void registerMBean(StudentManager manager, ReportGenerator reports) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(new MBean(manager, reports), name);
+        } catch (JMException e) {
+            System.err.println("Error registering metrics MBean: " + e.getMessage());
+        }
+    }
+
+    static void reset() {
+        for (LatencyHistogram h : ALL) h.reset();
+        JOURNAL_BYTES.reset();
+        SNAPSHOT_BYTES.reset();
+        CHANGES_SAVED.reset();
+        SAVE_FAILURES.reset();
+    }
+
+    static StudentMetricsMXBean.LatencyStats stats(LatencyHistogram h) {
+        return new StudentMetricsMXBean.LatencyStats(h.getCount(), h.getMeanMillis(),
+            h.getPercentileMillis(0.50), h.getPercentileMillis(0.95), h.getPercentileMillis(0.99), h.getMaxMillis());
+    }
+
+    // Text for the Diagnostics tab - same register as the analytics dashboard
+    static String format(StudentManager manager, ReportGenerator reports) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("⏱  LATENCY (milliseconds)\n");
+        sb.append("─────────────────────────────────────────────────────────────\n");
+        sb.append(String.format("   %-24s %8s %9s %9s %9s %9s %9s\n",
+            "", "Count", "Mean", "P50", "P95", "P99", "Max"));
+        sb.append("   " + "─".repeat(84) + "\n");
+        for (LatencyHistogram h : ALL) {
+            StudentMetricsMXBean.LatencyStats s = stats(h);
+            sb.append(String.format("   %-24s %8d %9.3f %9.3f %9.3f %9.3f %9.3f\n", h.getName(), s.getCount(),
+                s.getMeanMillis(), s.getP50Millis(), s.getP95Millis(), s.getP99Millis(), s.getMaxMillis()));
+        }
+
+        ReportCache cache = reports.getReportCache();
+        sb.append("\n📦 COUNTERS\n");
+        sb.append("─────────────────────────────────────────────────────────────\n");
+        sb.append(String.format("   %-24s %,d\n", "Students", manager.getStudentCount()));
+        sb.append(String.format("   %-24s %,d\n", "Changes saved", CHANGES_SAVED.sum()));
+        sb.append(String.format("   %-24s %,d\n", "Save failures", SAVE_FAILURES.sum()));
+        sb.append(String.format("   %-24s %,d\n", "Journal bytes written", JOURNAL_BYTES.sum()));
+        sb.append(String.format("   %-24s %,d\n", "Snapshot bytes written", SNAPSHOT_BYTES.sum()));
+        sb.append(String.format("   %-24s %,d hits / %,d misses (%d of %d cached)\n", "Report cache",
+            cache.getHits(), cache.getMisses(), cache.size(), cache.getCapacity()));
+        Runtime rt = Runtime.getRuntime();
+        sb.append(String.format("   %-24s %,d MB used of %,d MB\n", "Heap",
+            (rt.totalMemory() - rt.freeMemory()) >> 20, rt.maxMemory() >> 20));
+        sb.append("\nℹ️  Also available over JMX as " + OBJECT_NAME + " (JConsole, VisualVM).\n");
+        return sb.toString();
+    }
+
+    private static final class MBean implements StudentMetricsMXBean {
+        private final StudentManager manager;
+        private final ReportGenerator reports;
+
+        MBean(StudentManager manager, ReportGenerator reports) {
+            this.manager = manager;
+            this.reports = reports;
+        }
+
+        public LatencyStats getJournalSync() { return stats(JOURNAL_SYNC); }
+        public LatencyStats getSnapshotWrite() { return stats(SNAPSHOT_WRITE); }
+        public LatencyStats getDataLoad() { return stats(DATA_LOAD); }
+        public LatencyStats getAnalyticsRender() { return stats(ANALYTICS_RENDER); }
+        public LatencyStats getReportRender() { return stats(REPORT_RENDER); }
+        public LatencyStats getTableReload() { return stats(TABLE_RELOAD); }
+
+        public long getJournalBytesWritten() { return JOURNAL_BYTES.sum(); }
+        public long getSnapshotBytesWritten() { return SNAPSHOT_BYTES.sum(); }
+        public long getChangesSaved() { return CHANGES_SAVED.sum(); }
+        public long getSaveFailures() { return SAVE_FAILURES.sum(); }
+        public long getReportCacheHits() { return reports.getReportCache().getHits(); }
+        public long getReportCacheMisses() { return reports.getReportCache().getMisses(); }
+        public int getStudentCount() { return manager.getStudentCount(); }
+
+        public void reset() { PerformanceMetrics.reset(); }
+    }
+}
@@ -0,0 +1,176 @@
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Background writer for the journal/snapshot, so a click never waits on the disk.
+// StudentManager queues small journal operations here; the worker drains whatever
+// has piled up, applies it and does a single sync for the whole batch.
+// The queue is bounded - if the disk can't keep up, submit() blocks instead of
+// letting memory grow without limit.
+class PersistenceWorker {
+    interface JournalOp {
+        void apply(ChangeJournal journal) throws IOException;
+    }
+
+    interface JournalOpener {
+        ChangeJournal open() throws IOException;
+    }
+
+    // called on the worker thread - Swing code needs to hop over to the EDT itself
+    interface StatusListener {
+        void saved(int changes);
+        void saveFailed(IOException error);
+    }
+
+    private static final int QUEUE_CAPACITY = 8192;
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+    private static final JournalOp STOP = journal -> { };
+
+    private final BlockingQueue<JournalOp> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final List<StatusListener> listeners = new CopyOnWriteArrayList<>();
+    private final JournalOpener opener;
+    private final Thread thread;
+    private ChangeJournal journal;  // only touched by the worker thread once started
+
+    // sequence numbers used by flush() to wait until everything submitted so far is on disk
+    private long submitted;
+    private long completed;
+    private boolean stopped;
+
+    PersistenceWorker(ChangeJournal journal, JournalOpener opener) {
+        this.journal = journal;
+        this.opener = opener;
+        thread = new Thread(this::run, "student-data-writer");
+        thread.setDaemon(true);  // the shutdown hook flushes us, don't keep the JVM alive
+        thread.start();
+    }
+
+    public void addStatusListener(StatusListener listener) {
+        listeners.add(listener);
+    }
+
+    public void submit(JournalOp op) {
+        synchronized (this) {
+            if (stopped) {
+                System.err.println("Change made after shutdown was not saved");
+                return;
+            }
+            submitted++;
+        }
+        try {
+            queue.put(op);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Interrupted while queueing a change - it was not saved");
+        }
+    }
+
+    // Blocks until everything submitted before this call is synced (or the timeout runs out)
+    public boolean flush(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (this) {
+            long target = submitted;
+            while (completed < target) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0 || !thread.isAlive()) return false;
+                try {
+                    wait(left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Flushes what's queued and stops the thread - safe to call more than once
+    public boolean shutdown(long timeoutMillis) {
+        synchronized (this) {
+            if (stopped) return flush(0);
+            stopped = true;
+        }
+        queue.add(STOP);  // not counted in submitted, so flush() doesn't wait on it
+        boolean done = flush(timeoutMillis);
+        try {
+            thread.join(Math.max(1, timeoutMillis / 10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return done;
+    }
+
+    private void run() {
+        Deque<JournalOp> pending = new ArrayDeque<>();
+        List<JournalOp> drained = new ArrayList<>();
+        long retryDelay = 0;
+        boolean stopRequested = false;
+        int applied = 0;  // ops written since the last successful sync
+
+        while (true) {
+            if (pending.isEmpty() && applied == 0) {
+                if (stopRequested) break;
+                try {
+                    pending.add(queue.take());
+                } catch (InterruptedException e) {
+                    continue;  // we only stop through STOP, so nothing queued gets lost
+                }
+            }
+            // coalesce - grab everything else that's waiting so one sync covers it all
+            drained.clear();
+            queue.drainTo(drained);
+            pending.addAll(drained);
+
+            try {
+                if (journal == null) journal = opener.open();
+                while (!pending.isEmpty()) {
+                    JournalOp op = pending.peek();
+                    if (op == STOP) {
+                        stopRequested = true;
+                    } else {
+                        op.apply(journal);
+                        applied++;
+                    }
+                    pending.poll();
+                }
+                journal.sync();
+                int changes = applied;
+                applied = 0;
+                retryDelay = 0;
+                synchronized (this) {
+                    completed += changes;
+                    notifyAll();
+                }
+                if (changes > 0) {
+                    PerformanceMetrics.CHANGES_SAVED.add(changes);
+                    for (StatusListener l : listeners) l.saved(changes);
+                }
+            } catch (IOException | RuntimeException e) {
+                IOException error = e instanceof IOException ? (IOException) e : new IOException(e);
+                System.err.println("Error saving data: " + error.getMessage());
+                PerformanceMetrics.SAVE_FAILURES.increment();
+                for (StatusListener l : listeners) l.saveFailed(error);
+                if (stopRequested) break;  // shutting down - nothing more we can do
+                // ops that failed are still at the head of pending, and anything already
+                // applied is still buffered in the journal - the next pass retries both
+                retryDelay = retryDelay == 0 ? 500 : Math.min(MAX_RETRY_DELAY_MS, retryDelay * 2);
+                try {
+                    Thread.sleep(retryDelay);
+                } catch (InterruptedException ignored) {
+                    // just retry sooner
+                }
+            }
+        }
+        closeQuietly();
+    }
+
+    private void closeQuietly() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Error closing journal: " + e.getMessage());
+        }
+        journal = null;
+    }
+}
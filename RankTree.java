@@ -0,0 +1,193 @@
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+// Sorted collection that also knows positions: "what's at position i", "how many come
+// before x" and "everything from position a to b" are O(log n) (+ the size of the
+// range), where a TreeSet would have to walk from one end. Used for rankings.
+//
+// It's a treap - a binary search tree where each node also has a random priority and
+// parents always outrank their children, which keeps it balanced in expectation
+// without any rebalancing rules. Every node counts the nodes below it, which is what
+// the position lookups use. Elements must be distinct under the comparator.
+// Not thread-safe - owners synchronize.
+class RankTree<E> {
+    private static final class Node<E> {
+        final E value;
+        final int priority;
+        Node<E> left, right;
+        int size = 1;
+
+        Node(E value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+    }
+
+    private final Comparator<? super E> order;
+    private Node<E> root;
+    private int seed = 0x2545F491;
+
+    RankTree(Comparator<? super E> order) {
+        this.order = order;
+    }
+
+    public int size() { return size(root); }
+
+    public boolean isEmpty() { return root == null; }
+
+    public void clear() { root = null; }
+
+    public void add(E value) {
+        root = insert(root, new Node<>(value, nextPriority()));
+    }
+
+    public boolean remove(E value) {
+        int before = size();
+        root = remove(root, value);
+        return size() < before;
+    }
+
+    // element at position index (0 = first in comparator order)
+    public E get(int index) {
+        if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Position " + index + " of " + size());
+        Node<E> n = root;
+        while (true) {
+            int leftSize = size(n.left);
+            if (index < leftSize) {
+                n = n.left;
+            } else if (index == leftSize) {
+                return n.value;
+            } else {
+                index -= leftSize + 1;
+                n = n.right;
+            }
+        }
+    }
+
+    // Number of elements before some point in the order: probe returns a negative
+    // number for elements before it and anything else for the rest. The probe has to
+    // agree with the comparator (all "before" elements first) - e.g. e -> e.score > 90 ? -1 : 1
+    // on a tree sorted by score descending counts the scores above 90.
+    public int countBefore(ToIntFunction<? super E> probe) {
+        int count = 0;
+        Node<E> n = root;
+        while (n != null) {
+            if (probe.applyAsInt(n.value) < 0) {
+                count += size(n.left) + 1;
+                n = n.right;
+            } else {
+                n = n.left;
+            }
+        }
+        return count;
+    }
+
+    // elements at positions from (inclusive) to to (exclusive), in order
+    public List<E> range(int from, int to) {
+        from = Math.max(0, from);
+        to = Math.min(size(), to);
+        List<E> result = new ArrayList<>(Math.max(0, to - from));
+        if (from >= to) return result;
+        // walk down to position from, remembering the nodes still to visit on the way back up
+        Deque<Node<E>> stack = new ArrayDeque<>();
+        Node<E> n = root;
+        int skip = from;
+        while (n != null) {
+            int leftSize = size(n.left);
+            if (skip < leftSize) {
+                stack.push(n);
+                n = n.left;
+            } else if (skip == leftSize) {
+                stack.push(n);
+                break;
+            } else {
+                skip -= leftSize + 1;
+                n = n.right;
+            }
+        }
+        // then plain in-order from there
+        while (result.size() < to - from) {
+            Node<E> next = stack.pop();
+            result.add(next.value);
+            for (Node<E> c = next.right; c != null; c = c.left) stack.push(c);
+        }
+        return result;
+    }
+
+    private Node<E> insert(Node<E> n, Node<E> node) {
+        if (n == null) return node;
+        if (node.priority > n.priority) {
+            // the new node goes here - what was below splits around it
+            split(n, node.value, node);
+            update(node);
+            return node;
+        }
+        if (order.compare(node.value, n.value) < 0) {
+            n.left = insert(n.left, node);
+        } else {
+            n.right = insert(n.right, node);
+        }
+        update(n);
+        return n;
+    }
+
+    private Node<E> remove(Node<E> n, E value) {
+        if (n == null) return null;
+        int c = order.compare(value, n.value);
+        if (c == 0) return merge(n.left, n.right);
+        if (c < 0) {
+            n.left = remove(n.left, value);
+        } else {
+            n.right = remove(n.right, value);
+        }
+        update(n);
+        return n;
+    }
+
+    // splits n into the elements before key (-> into.left) and the rest (-> into.right)
+    private void split(Node<E> n, E key, Node<E> into) {
+        if (n == null) {
+            into.left = into.right = null;
+        } else if (order.compare(n.value, key) < 0) {
+            split(n.right, key, into);
+            n.right = into.left;
+            update(n);
+            into.left = n;
+        } else {
+            split(n.left, key, into);
+            n.left = into.right;
+            update(n);
+            into.right = n;
+        }
+    }
+
+    // joins two trees where everything in a comes before everything in b
+    private Node<E> merge(Node<E> a, Node<E> b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private static int size(Node<?> n) {
+        return n == null ? 0 : n.size;
+    }
+
+    private static void update(Node<?> n) {
+        n.size = size(n.left) + size(n.right) + 1;
+    }
+
+    // xorshift - balance only needs the priorities to look random
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+}
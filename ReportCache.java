@@ -0,0 +1,79 @@
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded LRU cache of rendered student reports, keyed by roll number. An entry is only
+// used at the same Student version, so adding marks or removing the student invalidates
+// it without anyone having to tell the cache - and a snapshot copy of the student hits
+// the same entry as the live one. Versions are unique across students apart from 0 (no
+// marks), where the report is just the name and class, so those are compared as well.
+class ReportCache {
+    private static final class Entry {
+        final long version;
+        final String name;
+        final String className;
+        final String report;
+
+        Entry(Student student, long version, String report) {
+            this.version = version;
+            this.name = student.getName();
+            this.className = student.getClassName();
+            this.report = report;
+        }
+
+        boolean matches(Student student, long version) {
+            return this.version == version && Objects.equals(name, student.getName())
+                && Objects.equals(className, student.getClassName());
+        }
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<String, Entry> entries;  // roll number -> entry, least recently used first
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    ReportCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ReportCache.this.capacity;
+            }
+        };
+    }
+
+    // null on a miss; version should be read before the report is rendered
+    public String get(Student student, long version) {
+        Entry e;
+        synchronized (entries) {
+            e = entries.get(student.getRollNumber());
+        }
+        if (e != null && e.matches(student, version)) {
+            hits.increment();
+            return e.report;
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(Student student, long version, String report) {
+        synchronized (entries) {
+            entries.put(student.getRollNumber(), new Entry(student, version, report));
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getCapacity() { return capacity; }
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+}
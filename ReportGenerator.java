@@ -0,0 +1,316 @@
+import java.util.List;
+import java.util.Map;
+
+// Builds the analytics dashboard and student report text. No Swing in here, so the
+// same output can be produced by the desktop app and by the headless batch mode.
+class ReportGenerator {
+    private static final int REPORT_CACHE_SIZE = 2048;
+    
+    private final AnalyticsEngine analytics;
+    // the student part of a report only depends on the student, so it's reused until
+    // that changes; the standing section depends on everyone and is added fresh each time
+    private final ReportCache reportCache = new ReportCache(REPORT_CACHE_SIZE);
+    
+    ReportGenerator(AnalyticsEngine analytics) {
+        this.analytics = analytics;
+    }
+    
+    public ReportCache getReportCache() {
+        return reportCache;
+    }
+    
+    // Generate analytics text - calculates various stats
+    public String generateAnalytics() {
+        long start = System.nanoTime();
+        try {
+            return renderAnalytics();
+        } finally {
+            PerformanceMetrics.ANALYTICS_RENDER.recordSince(start);
+        }
+    }
+    
+    // Dashboard for one term only (null = the normal all-time dashboard)
+    public String generateAnalytics(String term) {
+        if (term == null) return generateAnalytics();
+        long start = System.nanoTime();
+        try {
+            return renderPeriod(analytics.getHistory().summarizeTerm(term, 5));
+        } finally {
+            PerformanceMetrics.ANALYTICS_RENDER.recordSince(start);
+        }
+    }
+    
+    // Same for a date range (both ends included)
+    public String generateAnalytics(java.time.LocalDate from, java.time.LocalDate to) {
+        long start = System.nanoTime();
+        try {
+            return renderPeriod(analytics.getHistory().summarizeDates(from, to, 5));
+        } finally {
+            PerformanceMetrics.ANALYTICS_RENDER.recordSince(start);
+        }
+    }
+    
+    private String renderAnalytics() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("╔════════════════════════════════════════════════════════════════╗\n");
+        sb.append("║        STUDENT PERFORMANCE ANALYTICS DASHBOARD                ║\n");
+        sb.append("╚════════════════════════════════════════════════════════════════╝\n\n");
+        
+        // all the numbers come from the engine, which keeps them up to date as data changes
+        AnalyticsEngine stats = analytics;
+        int total = stats.getStudentCount();
+        if (total == 0) {
+            sb.append("📊 No student data available.\n");
+            sb.append("\nℹ️  Add students and their marks to view analytics.\n");
+            return sb.toString();
+        }
+        
+        sb.append("📈 OVERALL STATISTICS\n");
+        sb.append("─────────────────────────────────────────────────────────────\n");
+        sb.append(String.format("   Total Students: %d\n", total));
+        sb.append(String.format("   Class Average: %.2f%%\n", stats.getClassAverage()));
+        sb.append(String.format("   Highest Average: %.2f%%\n", stats.getHighestAverage()));
+        sb.append(String.format("   Lowest Average: %.2f%%\n\n", stats.getLowestAverage()));
+        
+        // Top performers list
+        sb.append("🏆 TOP 5 PERFORMERS\n");
+        sb.append("─────────────────────────────────────────────────────────────\n");
+        for (Student s : stats.getStudentsByRank(1, 5)) {
+            sb.append(String.format("   %2d. %-20s (%s) - %.2f%% [%s]\n", stats.getRank(s),
+                s.getName(), s.getRollNumber(), s.getAverageScore(), s.getGrade()));
+        }
+        
+        // Students who need help
+        sb.append("\n⚠️  STUDENTS NEEDING ATTENTION (Below 50%)\n");
+        sb.append("─────────────────────────────────────────────────────────────\n");
+        List<Student> needingAttention = stats.getStudentsNeedingAttention();
+        
+        if (needingAttention.isEmpty()) {
+            sb.append("   ✓ All students are performing well!\n");
+        } else {
+            needingAttention.forEach(s -> sb.append(String.format("   %-20s (%s) - %.2f%%\n", 
+                s.getName(), s.getRollNumber(), s.getAverageScore())));
+        }
+        
+        // Grade distribution chart
+        sb.append("\n📊 GRADE DISTRIBUTION\n");
+        sb.append("─────────────────────────────────────────────────────────────\n");
+        for (String grade : AnalyticsEngine.GRADE_ORDER) {
+            long count = stats.getGradeCount(grade);
+            if (count > 0) {
+                double percentage = (count * 100.0) / total;
+                String bar = "█".repeat((int)(percentage / 5));  // visual bar chart
+                sb.append(String.format("   %s: %2d students (%5.1f%%) %s\n", 
+                    grade, count, percentage, bar));
+            }
+        }
+        
+        // Percentile bands from the engine's histograms - students without marks left out
+        if (!Double.isNaN(stats.getPercentile(0.5))) {
+            sb.append("\n📐 PERCENTILE BANDS (student averages)\n");
+            sb.append("─────────────────────────────────────────────────────────────\n");
+            sb.append(String.format("   %-18s %8s %8s %8s %8s %8s %8s\n",
+                "", "Students", "P10", "P25", "Median", "P75", "P90"));
+            sb.append("   " + "─".repeat(74) + "\n");
+            appendBands(sb, "All students", stats.getStudentsWithMarks(), stats::getPercentile);
+            for (String className : stats.getClassNames()) {
+                appendBands(sb, "Class " + className, stats.getClassStudentsWithMarks(className),
+                    q -> stats.getClassPercentile(className, q));
+            }
+        }
+        
+        // Per-subject numbers straight from the subject index
+        List<SubjectIndex.SubjectStats> subjects = stats.getSubjectIndex().getAllStats();
+        if (!subjects.isEmpty()) {
+            sb.append("\n📚 SUBJECT-WISE PERFORMANCE\n");
+            sb.append("─────────────────────────────────────────────────────────────\n");
+            sb.append(String.format("   %-18s %8s %8s %8s %8s %8s %8s %8s\n",
+                "Subject", "Marks", "Students", "Mean", "Median", "Min", "Max", "Std Dev"));
+            sb.append("   " + "─".repeat(83) + "\n");
+            for (SubjectIndex.SubjectStats subject : subjects) {
+                sb.append(String.format("   %-18s %8d %8d %7.2f%% %7.2f%% %7.2f%% %7.2f%% %8.2f\n",
+                    subject.getSubject(), subject.getCount(), subject.getStudentCount(),
+                    subject.getMean(), subject.getMedian(), subject.getMin(), subject.getMax(), subject.getStdDev()));
+            }
+        }
+        
+        return sb.toString();
+    }
+    
+    private static String renderPeriod(AssessmentHistory.Summary period) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("╔════════════════════════════════════════════════════════════════╗\n");
+        sb.append("║        STUDENT PERFORMANCE ANALYTICS DASHBOARD                ║\n");
+        sb.append("╚════════════════════════════════════════════════════════════════╝\n\n");
+        
+        sb.append(String.format("🗓  %s\n", period.label));
+        sb.append("─────────────────────────────────────────────────────────────\n");
+        if (period.marks == 0) {
+            sb.append("   No marks recorded for this period.\n");
+            return sb.toString();
+        }
+        if (period.firstDate != null) {
+            sb.append(String.format("   Assessed: %s to %s\n", period.firstDate, period.lastDate));
+        }
+        sb.append(String.format("   Marks: %d\n", period.marks));
+        sb.append(String.format("   Students Assessed: %d\n", period.students));
+        sb.append(String.format("   Average: %.2f%%\n", period.mean));
+        sb.append(String.format("   Below 50%%: %d students\n\n", period.below));
+        
+        sb.append(String.format("🏆 TOP %d IN THIS PERIOD\n", period.best.size()));
+        sb.append("─────────────────────────────────────────────────────────────\n");
+        for (int i = 0; i < period.best.size(); i++) {
+            Student s = period.best.get(i);
+            sb.append(String.format("   %2d. %-20s (%s) - %.2f%%\n", i + 1,
+                s.getName(), s.getRollNumber(), period.bestAverages.get(i)));
+        }
+        
+        sb.append("\n📚 SUBJECT-WISE PERFORMANCE\n");
+        sb.append("─────────────────────────────────────────────────────────────\n");
+        sb.append(String.format("   %-18s %8s %8s\n", "Subject", "Marks", "Mean"));
+        sb.append("   " + "─".repeat(36) + "\n");
+        for (Map.Entry<String, double[]> e : period.subjects.entrySet()) {
+            sb.append(String.format("   %-18s %8d %7.2f%%\n", e.getKey(),
+                (long) e.getValue()[0], e.getValue()[1] / e.getValue()[0]));
+        }
+        return sb.toString();
+    }
+    
+    private static void appendBands(StringBuilder sb, String label, long students,
+                                    java.util.function.DoubleUnaryOperator percentile) {
+        sb.append(String.format("   %-18s %8d %7.1f%% %7.1f%% %7.1f%% %7.1f%% %7.1f%%\n",
+            label, students, percentile.applyAsDouble(0.10), percentile.applyAsDouble(0.25),
+            percentile.applyAsDouble(0.50), percentile.applyAsDouble(0.75), percentile.applyAsDouble(0.90)));
+    }
+    
+    // Generate detailed report for a single student (from the cache if it hasn't changed)
+    public String generateStudentReport(Student student) {
+        Student view = student.copy();  // one version of the marks for the whole report, even if more come in
+        long version = view.getVersion();
+        String report = reportCache.get(view, version);
+        if (report == null) {
+            report = renderStudentDetails(view);
+            reportCache.put(view, version, report);
+        }
+        return appendStanding(new StringBuilder(report), view).toString();
+    }
+    
+    // always renders - BulkReportWriter uses this directly so it doesn't churn the cache
+    String renderStudentReport(Student student) {
+        Student view = student.copy();
+        return appendStanding(new StringBuilder(renderStudentDetails(view)), view).toString();
+    }
+    
+    // Where the student stands compared to everyone else - cheap lookups in the engine
+    private StringBuilder appendStanding(StringBuilder sb, Student student) {
+        double schoolRank = analytics.getPercentileRank(student);
+        if (Double.isNaN(schoolRank)) return sb;  // no marks yet
+        sb.append("\n📍 STANDING\n");
+        sb.append("─────────────────────────────────────────────────────────────\n");
+        sb.append(String.format("   Rank (all students): %d of %d\n",
+            analytics.getRank(student), analytics.getStudentsWithMarks()));
+        sb.append(String.format("   Rank (class %s): %d of %d\n", student.getClassName(),
+            analytics.getClassRank(student), analytics.getClassStudentsWithMarks(student.getClassName())));
+        sb.append(String.format("   Percentile (all students): %.1f\n", schoolRank));
+        sb.append(String.format("   Percentile (class %s): %.1f\n", student.getClassName(),
+            analytics.getClassPercentileRank(student)));
+        return sb;
+    }
+    
+    private String renderStudentDetails(Student student) {
+        long start = System.nanoTime();
+        try {
+            return renderDetails(student);
+        } finally {
+            PerformanceMetrics.REPORT_RENDER.recordSince(start);
+        }
+    }
+    
+    private String renderDetails(Student student) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("╔════════════════════════════════════════════════════════════════╗\n");
+        sb.append("║            STUDENT PERFORMANCE REPORT                          ║\n");
+        sb.append("╚════════════════════════════════════════════════════════════════╝\n\n");
+        
+        sb.append("👤 STUDENT INFORMATION\n");
+        sb.append("─────────────────────────────────────────────────────────────\n");
+        sb.append(String.format("   Name: %s\n", student.getName()));
+        sb.append(String.format("   Roll Number: %s\n", student.getRollNumber()));
+        sb.append(String.format("   Class: %s\n\n", student.getClassName()));
+        
+        if (student.getMarkCount() == 0) {
+            sb.append("📝 No marks data available for this student.\n");
+            return sb.toString();
+        }
+        
+        sb.append("📚 SUBJECT-WISE PERFORMANCE\n");
+        sb.append("─────────────────────────────────────────────────────────────\n");
+        sb.append(String.format("   %-20s %10s %10s %12s\n", 
+            "Subject", "Obtained", "Maximum", "Percentage"));
+        sb.append("   " + "─".repeat(60) + "\n");
+        
+        for (int i = 0; i < student.getMarkCount(); i++) {
+            sb.append(String.format("   %-20s %10.2f %10.2f %11.2f%%%s\n", 
+                student.getSubject(i), 
+                student.getMarksObtained(i), 
+                student.getMaxMarks(i), 
+                student.getPercentage(i),
+                assessedWhen(student, i)));
+        }
+        
+        sb.append("\n📊 OVERALL PERFORMANCE\n");
+        sb.append("─────────────────────────────────────────────────────────────\n");
+        sb.append(String.format("   Average Score: %.2f%%\n", student.getAverageScore()));
+        sb.append(String.format("   Grade: %s\n", student.getGrade()));
+        
+        // Add personalized remark based on performance
+        String performance;
+        double avg = student.getAverageScore();
+        if (avg >= 90) performance = "Excellent! Outstanding performance! 🌟";
+        else if (avg >= 80) performance = "Very Good! Keep it up! 👏";
+        else if (avg >= 70) performance = "Good! Room for improvement. 💪";
+        else if (avg >= 60) performance = "Satisfactory. More effort needed. 📖";
+        else if (avg >= 50) performance = "Needs improvement. Keep working! 💡";
+        else performance = "Needs significant improvement. ⚠️";
+        
+        sb.append(String.format("   Remark: %s\n", performance));
+        
+        appendTrend(sb, AssessmentHistory.trendOf(student));
+        return sb.toString();
+    }
+    
+    // "  Term 2, 2026-03-14" after a subject row, if the mark has either
+    private static String assessedWhen(Student student, int index) {
+        String term = student.getTerm(index);
+        java.time.LocalDate date = student.getDate(index);
+        if (term == null && date == null) return "";
+        if (date == null) return "  " + term;
+        return "  " + (term == null ? "" : term + ", ") + date;
+    }
+    
+    // Per-term averages and the direction things are going - only for students with
+    // terms or dates on their marks
+    private static void appendTrend(StringBuilder sb, AssessmentHistory.Trend trend) {
+        if (trend.terms.isEmpty() && trend.datedMarks == 0) return;
+        sb.append("\n📈 TREND\n");
+        sb.append("─────────────────────────────────────────────────────────────\n");
+        if (!trend.terms.isEmpty()) {
+            sb.append(String.format("   %-20s %8s %10s\n", "Term", "Marks", "Average"));
+            sb.append("   " + "─".repeat(40) + "\n");
+            for (int i = 0; i < trend.terms.size(); i++) {
+                double[] t = trend.termStats.get(i);
+                sb.append(String.format("   %-20s %8d %9.2f%%\n", trend.terms.get(i), (long) t[0], t[1]));
+            }
+        }
+        if (!Double.isNaN(trend.slopePer30Days)) {
+            sb.append(String.format("   Change per 30 days: %+.2f points (%s)\n",
+                trend.slopePer30Days, trend.direction()));
+        } else {
+            sb.append(String.format("   Direction: %s\n", trend.direction()));
+        }
+        if (!Double.isNaN(trend.movingAverage)) {
+            sb.append(String.format("   Moving average (last %d assessments): %.2f%%\n",
+                Math.min(AssessmentHistory.MOVING_AVERAGE_WINDOW, trend.datedMarks), trend.movingAverage));
+        }
+    }
+}
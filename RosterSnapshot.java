@@ -0,0 +1,222 @@
+import java.util.*;
+
+// Immutable point-in-time view of the whole roster, for readers that want a consistent
+// picture (saving, bulk reports, export) without copying every student or stopping
+// writers. Holds frozen Student copies (Student.copy() - they share the mark columns,
+// so freezing is O(1)), keyed by roll number in a persistent hash trie: a change makes
+// a new version that shares everything except the path to the changed student
+// (at most 7 small nodes), and old versions stay valid for whoever is reading them.
+//
+// StudentManager keeps the latest version and swaps in a new one on every change;
+// snapshot() just hands out the current one. The epoch counts versions.
+class RosterSnapshot extends AbstractCollection<Student> {
+    static final RosterSnapshot EMPTY = new RosterSnapshot(Node.EMPTY, 0, 0);
+
+    private static final int BITS = 5;
+    private static final int MAX_SHIFT = 32;  // past this every hash bit is used - collision lists
+    private static final int MAX_DEPTH = MAX_SHIFT / BITS + 2;
+
+    private final Node root;
+    private final int size;
+    private final long epoch;
+
+    private RosterSnapshot(Node root, int size, long epoch) {
+        this.root = root;
+        this.size = size;
+        this.epoch = epoch;
+    }
+
+    // students are frozen as they go in
+    static RosterSnapshot of(Collection<Student> students) {
+        RosterSnapshot snapshot = EMPTY;
+        for (Student s : students) snapshot = snapshot.with(s.copy());
+        return new RosterSnapshot(snapshot.root, snapshot.size, 0);
+    }
+
+    public long getEpoch() { return epoch; }
+
+    @Override
+    public int size() { return size; }
+
+    public Student get(String rollNumber) {
+        return root.get(rollNumber, hash(rollNumber), 0);
+    }
+
+    // New version with this (already frozen) student added or replaced
+    RosterSnapshot with(Student frozen) {
+        String roll = frozen.getRollNumber();
+        boolean[] added = new boolean[1];
+        Node newRoot = root.put(roll, frozen, hash(roll), 0, added);
+        return new RosterSnapshot(newRoot, added[0] ? size + 1 : size, epoch + 1);
+    }
+
+    RosterSnapshot without(String rollNumber) {
+        Node newRoot = root.remove(rollNumber, hash(rollNumber), 0);
+        if (newRoot == root) return this;
+        return new RosterSnapshot(newRoot == null ? Node.EMPTY : newRoot, size - 1, epoch + 1);
+    }
+
+    @Override
+    public Iterator<Student> iterator() {
+        return new Walker(root);
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // Bitmap-indexed trie node: slots hold a Student or a child Node. Below MAX_SHIFT a
+    // node is a plain list of students whose hashes are all equal.
+    private static final class Node {
+        static final Node EMPTY = new Node(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] slots;
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        Student get(String key, int hash, int shift) {
+            if (shift >= MAX_SHIFT) {
+                for (Object o : slots) {
+                    if (((Student) o).getRollNumber().equals(key)) return (Student) o;
+                }
+                return null;
+            }
+            int bit = 1 << ((hash >>> shift) & 31);
+            if ((bitmap & bit) == 0) return null;
+            Object o = slots[index(bit)];
+            if (o instanceof Node) return ((Node) o).get(key, hash, shift + BITS);
+            Student s = (Student) o;
+            return s.getRollNumber().equals(key) ? s : null;
+        }
+
+        Node put(String key, Student value, int hash, int shift, boolean[] added) {
+            if (shift >= MAX_SHIFT) {
+                for (int i = 0; i < slots.length; i++) {
+                    if (((Student) slots[i]).getRollNumber().equals(key)) return replace(i, value);
+                }
+                added[0] = true;
+                Object[] grown = Arrays.copyOf(slots, slots.length + 1);
+                grown[slots.length] = value;
+                return new Node(0, grown);
+            }
+            int bit = 1 << ((hash >>> shift) & 31);
+            int i = index(bit);
+            if ((bitmap & bit) == 0) {
+                added[0] = true;
+                Object[] grown = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, grown, 0, i);
+                grown[i] = value;
+                System.arraycopy(slots, i, grown, i + 1, slots.length - i);
+                return new Node(bitmap | bit, grown);
+            }
+            Object o = slots[i];
+            if (o instanceof Node) {
+                return replace(i, ((Node) o).put(key, value, hash, shift + BITS, added));
+            }
+            Student existing = (Student) o;
+            if (existing.getRollNumber().equals(key)) return replace(i, value);
+            // two students share this slot now - push both one level down
+            added[0] = true;
+            boolean[] ignored = new boolean[1];
+            Node child = EMPTY
+                .put(existing.getRollNumber(), existing, hash(existing.getRollNumber()), shift + BITS, ignored)
+                .put(key, value, hash, shift + BITS, ignored);
+            return replace(i, child);
+        }
+
+        // this node if the key isn't there, null if the node ends up empty
+        Node remove(String key, int hash, int shift) {
+            if (shift >= MAX_SHIFT) {
+                for (int i = 0; i < slots.length; i++) {
+                    if (((Student) slots[i]).getRollNumber().equals(key)) {
+                        return slots.length == 1 ? null : new Node(0, removeSlot(i));
+                    }
+                }
+                return this;
+            }
+            int bit = 1 << ((hash >>> shift) & 31);
+            if ((bitmap & bit) == 0) return this;
+            int i = index(bit);
+            Object o = slots[i];
+            if (o instanceof Node) {
+                Node child = ((Node) o).remove(key, hash, shift + BITS);
+                if (child == o) return this;
+                if (child != null) {
+                    // a child left with a single student collapses into its parent
+                    return replace(i, child.slots.length == 1 && child.slots[0] instanceof Student ? child.slots[0] : child);
+                }
+            } else if (!((Student) o).getRollNumber().equals(key)) {
+                return this;
+            }
+            return bitmap == bit ? null : new Node(bitmap & ~bit, removeSlot(i));
+        }
+
+        private Node replace(int i, Object value) {
+            Object[] copy = slots.clone();
+            copy[i] = value;
+            return new Node(bitmap, copy);
+        }
+
+        private Object[] removeSlot(int i) {
+            Object[] shrunk = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, shrunk, 0, i);
+            System.arraycopy(slots, i + 1, shrunk, i, slots.length - i - 1);
+            return shrunk;
+        }
+    }
+
+    // depth-first walk over the trie, no copying
+    private static final class Walker implements Iterator<Student> {
+        private final Object[][] arrays = new Object[MAX_DEPTH + 1][];
+        private final int[] positions = new int[MAX_DEPTH + 1];
+        private int depth = -1;
+        private Student next;
+
+        Walker(Node root) {
+            push(root);
+            advance();
+        }
+
+        private void push(Node node) {
+            arrays[++depth] = node.slots;
+            positions[depth] = 0;
+        }
+
+        private void advance() {
+            next = null;
+            while (depth >= 0) {
+                if (positions[depth] == arrays[depth].length) {
+                    arrays[depth--] = null;
+                    continue;
+                }
+                Object o = arrays[depth][positions[depth]++];
+                if (o instanceof Node) {
+                    push((Node) o);
+                } else {
+                    next = (Student) o;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() { return next != null; }
+
+        @Override
+        public Student next() {
+            if (next == null) throw new NoSuchElementException();
+            Student s = next;
+            advance();
+            return s;
+        }
+    }
+}
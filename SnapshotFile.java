@@ -0,0 +1,245 @@
+import java.io.*;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Binary snapshot of all students - replaces the ObjectOutputStream dump.
+// The file is memory-mapped on load and students are only decoded when someone asks for them,
+// so opening a big file is basically just reading the roll number index.
+//
+// Layout (big endian):
+//   header   magic, version, generation, studentCount, stringCount, markCount,
+//            stringOffsetsPos, indexPos, marksPos
+//   strings  (stringCount + 1) absolute offsets, then the UTF-8 bytes of every string
+//            (names, roll numbers, classes and subjects all share this table)
+//   index    one fixed record per student: rollId, nameId, classId, markCount, firstMark
+//   marks    one fixed record per mark: subjectId, obtained, max, date (epoch day or
+//            Student.NO_DATE), termId (string id or -1)
+// Version 1 files (marks without date and term, 20 byte records) are still read.
+class SnapshotFile {
+    private static final int MAGIC = 0x53415332;  // "SAS2"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 56;
+    private static final int INDEX_RECORD = 24;
+    private static final int MARK_RECORD = 28;
+    private static final int MARK_RECORD_V1 = 20;
+
+    private final MappedByteBuffer buf;
+    private final long generation;
+    private final int studentCount;
+    private final int stringCount;
+    private final int stringOffsetsPos;
+    private final int indexPos;
+    private final int marksPos;
+    private final int markRecord;
+    private final String[] strings;  // decoded on first use, so repeated subjects share one String
+    private final int[] subjectIds;  // SubjectTable id + 1 for each string used as a subject, 0 = not looked up yet
+    private final int[] termIds;  // same for TermTable
+
+    private SnapshotFile(MappedByteBuffer buf) throws IOException {
+        this.buf = buf;
+        if (buf.capacity() < HEADER_SIZE || buf.getInt(0) != MAGIC) {
+            throw new IOException("Not a student snapshot file");
+        }
+        int version = buf.getInt(4);
+        if (version != VERSION && version != 1) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+        markRecord = version == 1 ? MARK_RECORD_V1 : MARK_RECORD;
+        generation = buf.getLong(8);
+        studentCount = buf.getInt(16);
+        stringCount = buf.getInt(20);
+        long markCount = buf.getLong(24);
+        stringOffsetsPos = checkedPos(buf.getLong(32));
+        indexPos = checkedPos(buf.getLong(40));
+        marksPos = checkedPos(buf.getLong(48));
+        if (studentCount < 0 || stringCount < 0
+                || (long) indexPos + (long) studentCount * INDEX_RECORD > buf.capacity()
+                || (long) marksPos + markCount * markRecord > buf.capacity()) {
+            throw new IOException("Snapshot file is truncated or corrupt");
+        }
+        strings = new String[stringCount];
+        subjectIds = new int[stringCount];
+        termIds = new int[stringCount];
+    }
+
+    private int checkedPos(long pos) throws IOException {
+        if (pos < HEADER_SIZE || pos > buf.capacity()) throw new IOException("Snapshot file is corrupt");
+        return (int) pos;
+    }
+
+    static SnapshotFile open(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot file too large to map: " + ch.size() + " bytes");
+            }
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            mapped.order(ByteOrder.BIG_ENDIAN);
+            return new SnapshotFile(mapped);
+        }
+    }
+
+    public long getGeneration() { return generation; }
+    public int getStudentCount() { return studentCount; }
+
+    // Only the roll numbers get decoded here - names and marks wait until the student is needed.
+    // Concurrent, since StudentManager decodes students out of it from any thread.
+    public Map<String, Integer> readRollIndex() {
+        Map<String, Integer> index = new ConcurrentHashMap<>(Math.max(16, studentCount * 4 / 3 + 1));
+        for (int slot = 0; slot < studentCount; slot++) {
+            index.put(string(buf.getInt(indexPos + slot * INDEX_RECORD)), slot);
+        }
+        return index;
+    }
+
+    // Fine to call from several threads: only absolute reads on the mapping, and the two
+    // caches below end up with the same values whichever thread fills them in
+    public Student readStudent(int slot) {
+        int rec = indexPos + slot * INDEX_RECORD;
+        Student student = new Student(
+            string(buf.getInt(rec)), string(buf.getInt(rec + 4)), string(buf.getInt(rec + 8)));
+        int count = buf.getInt(rec + 12);
+        long first = buf.getLong(rec + 16);
+        for (int i = 0; i < count; i++) {
+            int m = (int) (marksPos + (first + i) * markRecord);
+            if (markRecord == MARK_RECORD_V1) {
+                student.addMarks(subjectId(buf.getInt(m)), buf.getDouble(m + 4), buf.getDouble(m + 12),
+                    Student.NO_DATE, Student.NO_TERM);
+            } else {
+                int term = buf.getInt(m + 24);
+                student.addMarks(subjectId(buf.getInt(m)), buf.getDouble(m + 4), buf.getDouble(m + 12),
+                    buf.getInt(m + 20), term < 0 ? Student.NO_TERM : termId(term));
+            }
+        }
+        return student;
+    }
+
+    // file string id -> SubjectTable id, looked up once per subject
+    private int subjectId(int stringId) {
+        int id = subjectIds[stringId];
+        if (id == 0) {
+            id = SubjectTable.idOf(string(stringId)) + 1;
+            subjectIds[stringId] = id;
+        }
+        return id - 1;
+    }
+
+    private int termId(int stringId) {
+        int id = termIds[stringId];
+        if (id == 0) {
+            id = TermTable.idOf(string(stringId)) + 1;
+            termIds[stringId] = id;
+        }
+        return id - 1;
+    }
+
+    private String string(int id) {
+        String s = strings[id];
+        if (s == null) {
+            int start = (int) buf.getLong(stringOffsetsPos + id * 8);
+            int end = (int) buf.getLong(stringOffsetsPos + (id + 1) * 8);
+            byte[] bytes = new byte[end - start];
+            buf.get(start, bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+            strings[id] = s;
+        }
+        return s;
+    }
+
+    // Writes to a temp file and renames it over the target, so readers only ever see a complete file
+    static void write(Path path, Collection<Student> students, long generation) throws IOException {
+        long start = System.nanoTime();
+        // pass 1 - build the string table
+        Map<String, Integer> ids = new HashMap<>();
+        List<byte[]> encoded = new ArrayList<>();
+        int[] studentStrings = new int[students.size() * 3];
+        long markCount = 0;
+        int n = 0;
+        for (Student s : students) {
+            studentStrings[n++] = intern(s.getRollNumber(), ids, encoded);
+            studentStrings[n++] = intern(s.getName(), ids, encoded);
+            studentStrings[n++] = intern(s.getClassName(), ids, encoded);
+            for (int i = 0; i < s.getMarkCount(); i++) {
+                intern(s.getSubject(i), ids, encoded);
+                String term = s.getTerm(i);
+                if (term != null) intern(term, ids, encoded);
+            }
+            markCount += s.getMarkCount();
+        }
+
+        long stringOffsetsPos = HEADER_SIZE;
+        long stringDataPos = stringOffsetsPos + (encoded.size() + 1L) * 8;
+        long stringBytes = 0;
+        for (byte[] b : encoded) stringBytes += b.length;
+        long indexPos = stringDataPos + stringBytes;
+        long marksPos = indexPos + (long) students.size() * INDEX_RECORD;
+
+        // pass 2 - write it out
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(generation);
+            out.writeInt(students.size());
+            out.writeInt(encoded.size());
+            out.writeLong(markCount);
+            out.writeLong(stringOffsetsPos);
+            out.writeLong(indexPos);
+            out.writeLong(marksPos);
+
+            long offset = stringDataPos;
+            for (byte[] b : encoded) {
+                out.writeLong(offset);
+                offset += b.length;
+            }
+            out.writeLong(offset);
+            for (byte[] b : encoded) out.write(b);
+
+            long firstMark = 0;
+            n = 0;
+            for (Student s : students) {
+                out.writeInt(studentStrings[n++]);
+                out.writeInt(studentStrings[n++]);
+                out.writeInt(studentStrings[n++]);
+                out.writeInt(s.getMarkCount());
+                out.writeLong(firstMark);
+                firstMark += s.getMarkCount();
+            }
+            for (Student s : students) {
+                for (int i = 0; i < s.getMarkCount(); i++) {
+                    out.writeInt(ids.get(s.getSubject(i)));
+                    out.writeDouble(s.getMarksObtained(i));
+                    out.writeDouble(s.getMaxMarks(i));
+                    out.writeInt(s.getEpochDay(i));
+                    String term = s.getTerm(i);
+                    out.writeInt(term == null ? -1 : ids.get(term));
+                }
+            }
+            out.flush();
+            fos.getFD().sync();
+        }
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        PerformanceMetrics.SNAPSHOT_BYTES.add(marksPos + markCount * MARK_RECORD);
+        PerformanceMetrics.SNAPSHOT_WRITE.recordSince(start);
+    }
+
+    private static int intern(String s, Map<String, Integer> ids, List<byte[]> encoded) {
+        Integer id = ids.get(s);
+        if (id == null) {
+            id = encoded.size();
+            ids.put(s, id);
+            encoded.add(s.getBytes(StandardCharsets.UTF_8));
+        }
+        return id;
+    }
+}
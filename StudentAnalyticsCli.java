@@ -0,0 +1,247 @@
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Headless entry point for nightly/batch runs on a machine without a display.
+// Never touches Swing/AWT - it loads the store, runs the same ReportGenerator the
+// desktop app uses and streams the text to files or stdout.
+// The store is opened read-only (StudentManager.openReadOnly), so a run is safe next to
+// the desktop app or --serve; only --serve opens it for writing.
+//
+//   java StudentAnalyticsCli                          analytics dashboard to stdout
+//   java StudentAnalyticsCli --analytics out.txt      ... to a file
+//   java StudentAnalyticsCli --term "Term 2"          dashboard for one term's marks
+//   java StudentAnalyticsCli --reports reports/       one <roll>.txt per student
+//   java StudentAnalyticsCli --reports reports.zip    ... all in one zip
+//   java StudentAnalyticsCli --reports - --student 101 --student 102
+//   java StudentAnalyticsCli --export marks marks.csv    every mark as CSV (or .json), "-" for stdout
+//   java StudentAnalyticsCli --serve 8080                 HTTP API on localhost until stopped (Ctrl+C)
+//   java StudentAnalyticsCli --serve 0.0.0.0:8080         ... reachable from other machines
+public class StudentAnalyticsCli {
+    private static final String STDOUT = "-";
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");  // just in case something pulls in AWT
+
+        String analyticsTarget = null;
+        String reportsTarget = null;
+        String term = null;
+        DataExporter.Content exportContent = null;
+        String exportTarget = null;
+        List<String> rolls = new ArrayList<>();
+        InetSocketAddress serveAddress = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--analytics":
+                    analyticsTarget = optionalValue(args, i);
+                    if (analyticsTarget != null) i++;
+                    else analyticsTarget = STDOUT;
+                    break;
+                case "--reports":
+                    reportsTarget = requiredValue(args, i++);
+                    break;
+                case "--term":
+                    term = requiredValue(args, i++);
+                    break;
+                case "--student":
+                    rolls.add(requiredValue(args, i++));
+                    break;
+                case "--export":
+                    String kind = requiredValue(args, i++);
+                    try {
+                        exportContent = DataExporter.Content.valueOf(kind.toUpperCase());
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("Unknown export: " + kind + " (marks, students or subjects)");
+                        System.exit(2);
+                    }
+                    exportTarget = requiredValue(args, i++);
+                    break;
+                case "--serve":
+                    try {
+                        serveAddress = StudentApiServer.address(requiredValue(args, i++));
+                    } catch (IllegalArgumentException e) {
+                        System.err.println(e.getMessage());
+                        System.exit(2);
+                    }
+                    break;
+                case "-h":
+                case "--help":
+                    printUsage(System.out);
+                    return;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    printUsage(System.err);
+                    System.exit(2);
+            }
+        }
+        if (serveAddress != null) {
+            serve(serveAddress);
+            return;
+        }
+        if (analyticsTarget == null && reportsTarget == null && exportTarget == null) {
+            analyticsTarget = STDOUT;
+        }
+        if (!rolls.isEmpty() && reportsTarget == null) {
+            reportsTarget = STDOUT;
+        }
+
+        StudentManager manager = openStore(true);
+        int exitCode = 0;
+        try {
+            AnalyticsEngine analytics = new AnalyticsEngine(manager);
+            ReportGenerator reports = new ReportGenerator(analytics);
+            if (exportTarget != null) {
+                export(manager, analytics, exportContent, exportTarget);
+            }
+            if (analyticsTarget != null) {
+                try (Writer out = open(analyticsTarget)) {
+                    out.write(reports.generateAnalytics(term));
+                }
+            }
+            if (reportsTarget != null) {
+                exitCode = writeReports(manager, reports, reportsTarget, rolls);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing output: " + e.getMessage());
+            exitCode = 1;
+        } finally {
+            manager.close();
+        }
+        System.exit(exitCode);
+    }
+
+    // runs until the JVM is stopped; the shutdown hook saves everything
+    private static void serve(InetSocketAddress address) {
+        StudentManager manager = openStore(false);
+        AnalyticsEngine analytics = new AnalyticsEngine(manager);
+        ReportGenerator reports = new ReportGenerator(analytics);
+        PerformanceMetrics.registerMBean(manager, reports);  // watch it with JConsole
+        StudentApiServer server = new StudentApiServer(manager, analytics, reports,
+            System.getenv(StudentApiServer.TOKEN_ENV));
+        try {
+            server.start(address);
+        } catch (IOException e) {
+            System.err.println("Error starting HTTP API: " + e.getMessage());
+            manager.close();
+            System.exit(1);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            manager.close();
+        }, "save-on-exit"));
+        System.err.println("HTTP API listening on " + server.describe()
+            + (StudentApiServer.usesVirtualThreads() ? " (virtual threads)" : "") + " - Ctrl+C to stop");
+    }
+
+    // unreadable data files (or, for writing, the app already running) stop the run
+    private static StudentManager openStore(boolean readOnly) {
+        Path dataDir = Paths.get("");
+        try {
+            return readOnly ? StudentManager.openReadOnly(dataDir) : new StudentManager(dataDir);
+        } catch (UncheckedIOException e) {
+            System.err.println("Error loading data: " + e.getMessage());
+            System.exit(1);
+            return null;
+        }
+    }
+
+    private static int writeReports(StudentManager manager, ReportGenerator reports,
+                                    String target, List<String> rolls) throws IOException {
+        List<Student> students = new ArrayList<>();
+        int missing = 0;
+        if (rolls.isEmpty()) {
+            students = new ArrayList<>(manager.snapshot());
+            students.sort(Comparator.comparing(Student::getRollNumber));
+        } else {
+            for (String roll : rolls) {
+                Student s = manager.getStudent(roll);
+                if (s == null) {
+                    System.err.println("No student with roll number " + roll);
+                    missing++;
+                } else {
+                    students.add(s);
+                }
+            }
+        }
+
+        if (STDOUT.equals(target)) {
+            try (Writer out = open(STDOUT)) {
+                for (Student s : students) {
+                    out.write(reports.generateStudentReport(s));
+                    out.write("\n");
+                }
+            }
+        } else {
+            // renders and writes on all cores
+            Path path = Paths.get(target);
+            long start = System.nanoTime();
+            BulkReportWriter.Result result = BulkReportWriter.write(reports, students, path, null, () -> false);
+            System.err.printf("Wrote %d reports to %s in %d ms%n", result.written, path.toAbsolutePath(),
+                (System.nanoTime() - start) / 1_000_000);
+        }
+        return missing == 0 ? 0 : 1;
+    }
+
+    private static void export(StudentManager manager, AnalyticsEngine analytics,
+                               DataExporter.Content content, String target) throws IOException {
+        if (STDOUT.equals(target)) {
+            DataExporter.export(manager.snapshot(), analytics, content, DataExporter.Format.CSV,
+                Channels.newChannel(System.out), null, () -> false);
+            System.out.flush();
+        } else {
+            Path path = Paths.get(target);
+            long start = System.nanoTime();
+            DataExporter.Result result = DataExporter.export(manager.snapshot(), analytics, content, path, null, () -> false);
+            System.err.printf("Exported %d rows to %s in %d ms%n", result.rows, path.toAbsolutePath(),
+                (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private static Writer open(String target) throws IOException {
+        if (STDOUT.equals(target)) {
+            // don't let closing the writer close System.out
+            return new BufferedWriter(new OutputStreamWriter(new FilterOutputStream(System.out) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            }, StandardCharsets.UTF_8));
+        }
+        return Files.newBufferedWriter(Paths.get(target), StandardCharsets.UTF_8);
+    }
+
+    private static String optionalValue(String[] args, int i) {
+        return i + 1 < args.length && !args[i + 1].startsWith("--") ? args[i + 1] : null;
+    }
+
+    private static String requiredValue(String[] args, int i) {
+        if (i + 1 >= args.length) {
+            System.err.println("Missing value for " + args[i]);
+            printUsage(System.err);
+            System.exit(2);
+        }
+        return args[i + 1];
+    }
+
+    private static void printUsage(PrintStream out) {
+        out.println("Usage: java StudentAnalyticsCli [options]");
+        out.println("  --analytics [FILE]   write the analytics dashboard (default: stdout)");
+        out.println("  --term TERM          dashboard for that term's marks only");
+        out.println("  --reports DIR|-      write one report per student into DIR (or into DIR.zip), or all to stdout");
+        out.println("  --student ROLL       only report on this student (can be repeated)");
+        out.println("  --export KIND FILE|- marks, students or subjects as CSV (JSON if FILE ends in .json)");
+        out.println("  --serve [HOST:]PORT  run the HTTP API until stopped - on localhost unless HOST is given");
+        out.println("                       (0.0.0.0 for every interface; adding marks needs $" + StudentApiServer.TOKEN_ENV + ",");
+        out.println("                       without it the API is read-only)");
+        out.println("  --help               show this help");
+        out.println("Run it from the directory that holds the student_data files.");
+    }
+}
@@ -1,20 +1,45 @@
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.*;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 // Main class - started this on Nov 20, 2024
 // TODO: maybe add more features later?
 public class StudentAnalyticsSystem extends JFrame {
     private StudentManager studentManager;
+    private AnalyticsEngine analyticsEngine;
+    private ReportGenerator reportGenerator;
     private JTabbedPane tabbedPane;
-    private JComboBox<String> marksStudentCombo;
-    private JComboBox<String> reportsStudentCombo;
+    private StudentPicker marksStudentPicker;
+    private StudentPicker reportsStudentPicker;
+    private JLabel saveStatusLabel;
+    private StudentApiServer apiServer;  // only with --http
+    private InetSocketAddress pendingApiAddress;  // --http given before the data finished loading
+    private javax.swing.Timer metricsTimer;  // Diagnostics tab refresh, once that tab is built
+    
+    // tab contents are built the first time each tab is shown, once the data is loaded
+    private final List<java.util.function.Supplier<JPanel>> tabBuilders = new ArrayList<>();
+    private final List<Boolean> tabBuilt = new ArrayList<>();
+    private final List<JLabel> loadingLabels = new ArrayList<>();
     
     // tried different colors - these look good with dark theme
     private static final Color DARK_BG = new Color(30, 30, 30);
@@ -27,19 +52,94 @@ public class StudentAnalyticsSystem extends JFrame {
     private static final Color WARNING_COLOR = new Color(255, 152, 0);
     private static final Color ERROR_COLOR = new Color(244, 67, 54);
     
+    // The window comes up straight away with placeholder tabs; the data is loaded in
+    // the background (see loadDataInBackground) and the tabs fill in after that
     public StudentAnalyticsSystem() {
-        studentManager = new StudentManager();
         setupLookAndFeel();
         initializeUI();
         setTitle("Student Performance Analytics System");
         setSize(1200, 800);  // tested different sizes, this works best
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // EXIT_ON_CLOSE could kill the JVM halfway through a write - close the store first
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                exitApplication();
+            }
+        });
         setLocationRelativeTo(null);
+        loadDataInBackground();
+    }
+    
+    private void exitApplication() {
+        setVisible(false);
+        if (metricsTimer != null) metricsTimer.stop();  // would keep reading the store while it closes
+        if (apiServer != null) apiServer.stop();
+        // still loading - nothing was changed yet (a conversion from an old format is crash safe)
+        if (studentManager != null) studentManager.close();  // waits for pending writes
+        dispose();
+        System.exit(0);
+    }
+    
+    // Loading the store and building the analytics indexes can take seconds for a big
+    // roster, so it runs on a worker thread while the window shows a progress bar
+    private void loadDataInBackground() {
+        SwingWorker<Void, String> loader = new SwingWorker<Void, String>() {
+            private StudentManager manager;
+            private AnalyticsEngine analytics;
+            
+            @Override
+            protected Void doInBackground() {
+                publish("Loading student data...");
+                manager = new StudentManager();
+                publish(String.format("Building analytics for %,d students...", manager.getStudentCount()));
+                analytics = new AnalyticsEngine(manager);
+                return null;
+            }
+            
+            @Override
+            protected void process(List<String> phases) {
+                String phase = phases.get(phases.size() - 1);
+                for (JLabel label : loadingLabels) label.setText(phase);
+                setSaveStatus("⏳ " + phase, TEXT_COLOR);
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    get();
+                } catch (java.util.concurrent.ExecutionException ex) {
+                    ex.getCause().printStackTrace();
+                    System.err.println("Error loading data: " + ex.getCause().getMessage());
+                    for (JLabel label : loadingLabels) label.setText("Could not load the data: " + ex.getCause().getMessage());
+                    setSaveStatus("⚠️ Could not load the data", ERROR_COLOR);
+                    return;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                dataLoaded(manager, analytics);
+            }
+        };
+        loader.execute();
+    }
+    
+    private void dataLoaded(StudentManager manager, AnalyticsEngine analytics) {
+        studentManager = manager;
+        analyticsEngine = analytics;
+        reportGenerator = new ReportGenerator(analyticsEngine);
+        PerformanceMetrics.registerMBean(studentManager, reportGenerator);
+        // also covers Ctrl+C / logoff, where windowClosing never runs
+        Runtime.getRuntime().addShutdownHook(new Thread(studentManager::close, "save-on-exit"));
+        watchSaveStatus();
+        setSaveStatus("✓ All changes saved", SUCCESS_COLOR);
+        buildSelectedTab();
+        if (pendingApiAddress != null) startApiServer(pendingApiAddress);
     }
     // setupLookAndFeel 
     private void setupLookAndFeel() {
         try {
-            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeel());
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (Exception e) {
             e.printStackTrace();
             // fallback to default if system L&F fails
@@ -60,23 +160,90 @@ public class StudentAnalyticsSystem extends JFrame {
         tabbedPane.setFont(new Font("Segoe UI", Font.BOLD, 14));
         
         // adding tabs with emojis - looks cool!
-        tabbedPane.addTab("📚 Students", createStudentPanel());
-        tabbedPane.addTab("✏️ Add Marks", createMarksPanel());
-        tabbedPane.addTab("📊 Analytics", createAnalyticsPanel());
-        tabbedPane.addTab("📄 Reports", createReportsPanel());
-        
-        // This listener refreshes combos when switching tabs
-        // had a bug here before where combos weren't updating
+        addLazyTab("📚 Students", this::createStudentPanel);
+        addLazyTab("✏️ Add Marks", this::createMarksPanel);
+        addLazyTab("📊 Analytics", this::createAnalyticsPanel);
+        addLazyTab("📄 Reports", this::createReportsPanel);
+        addLazyTab("🩺 Diagnostics", this::createDiagnosticsPanel);
+
+        // pickers only hold search results - rerun the search when switching tabs
+        // so students added meanwhile show up
         tabbedPane.addChangeListener(e -> {
+            buildSelectedTab();
             int selectedIndex = tabbedPane.getSelectedIndex();
-            if (selectedIndex == 1 && marksStudentCombo != null) {
-                refreshStudentCombo(marksStudentCombo);
-            } else if (selectedIndex == 3 && reportsStudentCombo != null) {
-                refreshStudentCombo(reportsStudentCombo);
+            if (selectedIndex == 1 && marksStudentPicker != null) {
+                marksStudentPicker.refresh();
+            } else if (selectedIndex == 3 && reportsStudentPicker != null) {
+                reportsStudentPicker.refresh();
             }
         });
         
         add(tabbedPane);
+        add(createStatusBar(), BorderLayout.SOUTH);
+    }
+    
+    // Placeholder with a progress bar until the data is loaded and the tab is first shown
+    private void addLazyTab(String title, java.util.function.Supplier<JPanel> builder) {
+        JPanel placeholder = new JPanel(new GridBagLayout());
+        placeholder.setBackground(DARK_BG);
+        JPanel box = new JPanel(new BorderLayout(0, 10));
+        box.setBackground(DARK_BG);
+        JLabel label = createLabel("Loading student data...");
+        label.setHorizontalAlignment(SwingConstants.CENTER);
+        JProgressBar progress = new JProgressBar();
+        progress.setIndeterminate(true);
+        box.add(label, BorderLayout.NORTH);
+        box.add(progress, BorderLayout.CENTER);
+        placeholder.add(box);
+        loadingLabels.add(label);
+        
+        tabbedPane.addTab(title, placeholder);
+        tabBuilders.add(builder);
+        tabBuilt.add(false);
+    }
+    
+    private void buildSelectedTab() {
+        int index = tabbedPane.getSelectedIndex();
+        if (studentManager == null || index < 0 || tabBuilt.get(index)) return;
+        tabBuilt.set(index, true);
+        tabbedPane.setComponentAt(index, tabBuilders.get(index).get());
+    }
+    
+    // Save status line at the bottom - writes happen in the background now,
+    // so this is how the user finds out if something went wrong
+    private JPanel createStatusBar() {
+        JPanel statusBar = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 4));
+        statusBar.setBackground(DARKER_BG);
+        saveStatusLabel = new JLabel();
+        saveStatusLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        setSaveStatus("⏳ Loading student data...", TEXT_COLOR);
+        statusBar.add(saveStatusLabel);
+        return statusBar;
+    }
+    
+    private void watchSaveStatus() {
+        // changes can come from other threads too
+        Runnable saving = () -> setSaveStatus("💾 Saving...", TEXT_COLOR);
+        studentManager.addStudentListener(new StudentListener() {
+            public void studentAdded(Student student) { SwingUtilities.invokeLater(saving); }
+            public void studentRemoved(Student student) { SwingUtilities.invokeLater(saving); }
+            public void marksAdded(Student student, int markIndex) { SwingUtilities.invokeLater(saving); }
+            public void studentsReloaded() { SwingUtilities.invokeLater(saving); }
+        });
+        studentManager.addSaveStatusListener(new PersistenceWorker.StatusListener() {
+            public void saved(int changes) {
+                SwingUtilities.invokeLater(() -> setSaveStatus("✓ All changes saved", SUCCESS_COLOR));
+            }
+            public void saveFailed(IOException error) {
+                SwingUtilities.invokeLater(() -> setSaveStatus(
+                    "⚠️ Save failed: " + error.getMessage() + " (retrying)", ERROR_COLOR));
+            }
+        });
+    }
+    
+    private void setSaveStatus(String text, Color color) {
+        saveStatusLabel.setText(text);
+        saveStatusLabel.setForeground(color);
     }
     
     // Student tab - where users add/remove students
@@ -125,25 +292,48 @@ public class StudentAnalyticsSystem extends JFrame {
         JButton addButton = createStyledButton("➕ Add Student", SUCCESS_COLOR);
         JButton removeButton = createStyledButton("🗑️ Remove Student", ERROR_COLOR);
         JButton refreshButton = createStyledButton("🔄 Refresh", ACCENT_COLOR);
+        JButton importButton = createStyledButton("📥 Import CSV", WARNING_COLOR);
         
         buttonPanel.add(addButton);
         buttonPanel.add(removeButton);
         buttonPanel.add(refreshButton);
+        buttonPanel.add(importButton);
         
-        cardPanel.add(buttonPanel, BorderLayout.SOUTH);
+        TaskProgress importProgress = new TaskProgress();  // only shown while an import is running
+        importProgress.setBackground(CARD_BG);
+        
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.setBackground(CARD_BG);
+        southPanel.add(buttonPanel, BorderLayout.CENTER);
+        southPanel.add(importProgress, BorderLayout.SOUTH);
+        cardPanel.add(southPanel, BorderLayout.SOUTH);
         headerPanel.add(cardPanel, BorderLayout.CENTER);
         
-        // Table to display students
-        String[] columns = {"Roll No", "Name", "Class", "Avg Score", "Grade"};
-        DefaultTableModel tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;  // don't let users edit table directly
-            }
-        };
+        // Table to display students - the model keeps itself in sync with the manager
+        StudentTableModel tableModel = new StudentTableModel(studentManager);
         JTable studentTable = createStyledTable(tableModel);
+        studentTable.getColumnModel().getColumn(StudentTableModel.AVERAGE)
+            .setCellRenderer(createFormattingRenderer("%.2f"));
         JScrollPane scrollPane = createStyledScrollPane(studentTable);
         
+        // Search box - goes through the manager's indexes, not the table rows
+        JTextField searchField = createStyledTextField();
+        searchField.setToolTipText("Roll number or name prefix, or class:<name> / grade:<grade>");
+        javax.swing.Timer searchDelay = new javax.swing.Timer(200, e -> tableModel.setFilter(searchField.getText()));
+        searchDelay.setRepeats(false);  // wait until the user stops typing
+        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            public void insertUpdate(javax.swing.event.DocumentEvent e) { searchDelay.restart(); }
+            public void removeUpdate(javax.swing.event.DocumentEvent e) { searchDelay.restart(); }
+            public void changedUpdate(javax.swing.event.DocumentEvent e) { searchDelay.restart(); }
+        });
+        
+        JPanel searchPanel = new JPanel(new BorderLayout(10, 0));
+        searchPanel.setBackground(DARK_BG);
+        searchPanel.setBorder(new EmptyBorder(10, 0, 0, 0));
+        searchPanel.add(createLabel("🔍 Search:"), BorderLayout.WEST);
+        searchPanel.add(searchField, BorderLayout.CENTER);
+        headerPanel.add(searchPanel, BorderLayout.SOUTH);
+        
         // Add button logic
         addButton.addActionListener(e -> {
             String name = nameField.getText().trim();
@@ -158,7 +348,6 @@ public class StudentAnalyticsSystem extends JFrame {
             
             Student student = new Student(roll, name, className);
             if (studentManager.addStudent(student)) {
-                refreshStudentTable(tableModel);
                 // clear fields after adding
                 nameField.setText("");
                 rollField.setText("");
@@ -173,14 +362,13 @@ public class StudentAnalyticsSystem extends JFrame {
         removeButton.addActionListener(e -> {
             int selectedRow = studentTable.getSelectedRow();
             if (selectedRow >= 0) {
-                String rollNo = (String) tableModel.getValueAt(selectedRow, 0);
+                String rollNo = tableModel.getStudentAt(selectedRow).getRollNumber();
                 int confirm = JOptionPane.showConfirmDialog(this, 
                     "Are you sure you want to remove this student?", 
                     "Confirm Deletion", 
                     JOptionPane.YES_NO_OPTION);
                 if (confirm == JOptionPane.YES_OPTION) {
                     studentManager.removeStudent(rollNo);
-                    refreshStudentTable(tableModel);
                     showStyledMessage(this, "Student removed successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
                 }
             } else {
@@ -188,15 +376,87 @@ public class StudentAnalyticsSystem extends JFrame {
             }
         });
         
-        refreshButton.addActionListener(e -> refreshStudentTable(tableModel));
+        refreshButton.addActionListener(e -> tableModel.reload());
+        importButton.addActionListener(e -> importCsv(importButton, importProgress));
         
         panel.add(headerPanel, BorderLayout.NORTH);
         panel.add(scrollPane, BorderLayout.CENTER);
         
-        refreshStudentTable(tableModel);  // load initial data
         return panel;
     }
     
+    // Bulk import - parsing and applying the rows (one batch) both run in the background.
+    // Cancel works while the file is read; once the batch starts it runs to the end. Cancel
+    // only asks the parse to stop (the worker itself is never cancelled), so done() always
+    // gets the real outcome - a Cancel that comes too late still shows what was imported.
+    private void importCsv(JButton importButton, TaskProgress progress) {
+        JFileChooser chooser = new JFileChooser(new File("."));
+        chooser.setDialogTitle("Import students and marks (roll, name, class[, subject, marks, max marks])");
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV files", "csv"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path file = chooser.getSelectedFile().toPath();
+        
+        importButton.setEnabled(false);
+        AtomicBoolean cancelRequested = new AtomicBoolean();
+        SwingWorker<CsvImporter.Result, Void> worker = new SwingWorker<CsvImporter.Result, Void>() {
+            @Override
+            protected CsvImporter.Result doInBackground() throws Exception {
+                CsvImporter.Result result = CsvImporter.parse(file,
+                    (read, total) -> setProgress(total == 0 ? 100 : (int) (read * 100 / total)),
+                    cancelRequested::get);
+                if (cancelRequested.get()) result.cancelled = true;  // came in after the last chunk
+                if (result.cancelled) return result;
+                SwingUtilities.invokeLater(() -> progress.uncancellable("Applying " + result.rows.size() + " rows..."));
+                CsvImporter.apply(studentManager, result);
+                return result;
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    CsvImporter.Result result = get();
+                    if (result.cancelled) {
+                        showStyledMessage(StudentAnalyticsSystem.this, "Import cancelled - nothing was added.",
+                            "Cancelled", JOptionPane.WARNING_MESSAGE);
+                    } else {
+                        showImportSummary(file, result);
+                    }
+                } catch (java.util.concurrent.ExecutionException ex) {
+                    showStyledMessage(StudentAnalyticsSystem.this, "Import failed: " + ex.getCause().getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    progress.finish();
+                    importButton.setEnabled(true);
+                }
+            }
+        };
+        progress.start(worker, "Reading " + file.getFileName() + "...", () -> cancelRequested.set(true));
+        worker.execute();
+    }
+    
+    private void showImportSummary(Path file, CsvImporter.Result result) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Imported %s%n", file.getFileName()));
+        sb.append(String.format("   Students added: %d%n", result.studentsAdded));
+        sb.append(String.format("   Marks added: %d%n", result.marksAdded));
+        sb.append(String.format("   Rejected lines: %d%n", result.rejectedCount));
+        if (!result.rejected.isEmpty()) {
+            sb.append("\n");
+            for (CsvImporter.Reject r : result.rejected) sb.append(r).append("\n");
+            if (result.rejectedCount > result.rejected.size()) {
+                sb.append(String.format("... and %d more%n", result.rejectedCount - result.rejected.size()));
+            }
+        }
+        
+        JTextArea area = new JTextArea(sb.toString(), 15, 60);
+        area.setEditable(false);
+        area.setFont(new Font("Consolas", Font.PLAIN, 12));
+        int type = result.rejectedCount == 0 ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE;
+        JOptionPane.showMessageDialog(this, new JScrollPane(area), "Import Finished", type);
+    }
+    
     // Marks panel - for entering subject marks
     private JPanel createMarksPanel() {
         JPanel panel = new JPanel(new BorderLayout(15, 15));
@@ -215,23 +475,32 @@ public class StudentAnalyticsSystem extends JFrame {
             new EmptyBorder(15, 15, 15, 15)
         ));
         
-        JPanel inputPanel = new JPanel(new GridLayout(4, 2, 10, 10));
+        JPanel inputPanel = new JPanel(new GridLayout(6, 2, 10, 10));
         inputPanel.setBackground(CARD_BG);
         
-        marksStudentCombo = createStyledComboBox();
+        marksStudentPicker = createStudentPicker();
         JTextField subjectField = createStyledTextField();
         JTextField marksField = createStyledTextField();
         JTextField maxMarksField = createStyledTextField();
         maxMarksField.setText("100");  // default max marks
+        JTextField termField = createStyledTextField();  // kept between entries - usually a whole sheet is one term
+        termField.setToolTipText("e.g. Term 2 or Midterm - optional");
+        JTextField dateField = createStyledTextField();
+        dateField.setText(LocalDate.now().toString());
+        dateField.setToolTipText("Assessment date, YYYY-MM-DD - leave empty if unknown");
         
         inputPanel.add(createLabel("Select Student:"));
-        inputPanel.add(marksStudentCombo);
+        inputPanel.add(marksStudentPicker);
         inputPanel.add(createLabel("Subject:"));
         inputPanel.add(subjectField);
         inputPanel.add(createLabel("Marks Obtained:"));
         inputPanel.add(marksField);
         inputPanel.add(createLabel("Maximum Marks:"));
         inputPanel.add(maxMarksField);
+        inputPanel.add(createLabel("Term (optional):"));
+        inputPanel.add(termField);
+        inputPanel.add(createLabel("Assessment Date:"));
+        inputPanel.add(dateField);
         
         cardPanel.add(inputPanel, BorderLayout.CENTER);
         
@@ -239,38 +508,39 @@ public class StudentAnalyticsSystem extends JFrame {
         buttonPanel.setBackground(CARD_BG);
         JButton addMarksButton = createStyledButton("➕ Add Marks", SUCCESS_COLOR);
         JButton refreshButton = createStyledButton("🔄 Refresh List", ACCENT_COLOR);
+        JButton exportButton = createStyledButton("💾 Export...", WARNING_COLOR);
+        exportButton.setToolTipText("Save every mark to a .csv (can be imported again) or .json file");
         buttonPanel.add(addMarksButton);
         buttonPanel.add(refreshButton);
+        buttonPanel.add(exportButton);
         
         cardPanel.add(buttonPanel, BorderLayout.SOUTH);
         
+        // only shown while an export is running
+        TaskProgress exportProgress = new TaskProgress();
+        
         JPanel topPanel = new JPanel(new BorderLayout());
         topPanel.setBackground(DARK_BG);
         topPanel.add(titleLabel, BorderLayout.NORTH);
         topPanel.add(cardPanel, BorderLayout.CENTER);
+        topPanel.add(exportProgress, BorderLayout.SOUTH);
         
         // Table showing all marks entries
-        String[] columns = {"Roll No", "Name", "Subject", "Marks", "Max Marks", "Percentage"};
-        DefaultTableModel tableModel = new DefaultTableModel(columns, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        MarksTableModel tableModel = new MarksTableModel(studentManager);
         JTable marksTable = createStyledTable(tableModel);
+        marksTable.getColumnModel().getColumn(MarksTableModel.PERCENTAGE)
+            .setCellRenderer(createFormattingRenderer("%.2f%%"));
         JScrollPane scrollPane = createStyledScrollPane(marksTable);
         
-        refreshStudentCombo(marksStudentCombo);
-        
         // Add marks logic with validation
         addMarksButton.addActionListener(e -> {
-            String selected = (String) marksStudentCombo.getSelectedItem();
-            if (selected == null) {
-                showStyledMessage(this, "No students available! Please add students first.", "Warning", JOptionPane.WARNING_MESSAGE);
+            Student student = marksStudentPicker.getSelectedStudent();
+            if (student == null) {
+                showStyledMessage(this, "No student picked! Choose one from the list or type the exact roll number.", "Warning", JOptionPane.WARNING_MESSAGE);
                 return;
             }
             
-            String rollNo = selected.split(" - ")[0];
+            String rollNo = student.getRollNumber();
             String subject = subjectField.getText().trim();
             
             if (subject.isEmpty()) {
@@ -283,16 +553,23 @@ public class StudentAnalyticsSystem extends JFrame {
                 double maxMarks = Double.parseDouble(maxMarksField.getText().trim());
                 
                 // check if marks are valid
-                if (marks < 0 || maxMarks <= 0 || marks > maxMarks) {
+                if (!StudentManager.isValidMarks(marks, maxMarks)) {
                     showStyledMessage(this, "Invalid marks! Ensure 0 ≤ marks ≤ max marks.", "Error", JOptionPane.ERROR_MESSAGE);
                     return;
                 }
                 
-                Student student = studentManager.getStudent(rollNo);
-                if (student != null) {
-                    student.addMarks(subject, marks, maxMarks);
-                    studentManager.saveData();
-                    refreshMarksTable(tableModel);
+                LocalDate date = null;
+                String dateText = dateField.getText().trim();
+                if (!dateText.isEmpty()) {
+                    try {
+                        date = LocalDate.parse(dateText);
+                    } catch (java.time.format.DateTimeParseException ex) {
+                        showStyledMessage(this, "Assessment date must look like 2026-03-14 (or be left empty).", "Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                }
+                
+                if (studentManager.addMarks(rollNo, subject, marks, maxMarks, date, termField.getText())) {
                     subjectField.setText("");
                     marksField.setText("");
                     showStyledMessage(this, "Marks added successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
@@ -303,14 +580,15 @@ public class StudentAnalyticsSystem extends JFrame {
         });
         
         refreshButton.addActionListener(e -> {
-            refreshStudentCombo(marksStudentCombo);
-            refreshMarksTable(tableModel);
+            marksStudentPicker.refresh();
+            tableModel.reload();
         });
+        exportButton.addActionListener(e -> exportData(DataExporter.Content.MARKS, "marks.csv",
+            exportButton, exportProgress));
         
         panel.add(topPanel, BorderLayout.NORTH);
         panel.add(scrollPane, BorderLayout.CENTER);
         
-        refreshMarksTable(tableModel);
         return panel;
     }
     
@@ -335,9 +613,45 @@ public class StudentAnalyticsSystem extends JFrame {
         
         JScrollPane scrollPane = createStyledScrollPane(analyticsArea);
         
+        // "All terms" is the normal dashboard, a term shows only that term's marks
+        String allTerms = "All terms";
+        JComboBox<String> termFilter = new JComboBox<>(new String[]{allTerms});
+        Runnable refresh = () -> {
+            Object selected = termFilter.getSelectedItem();
+            analyticsArea.setText(reportGenerator.generateAnalytics(
+                selected == null || allTerms.equals(selected) ? null : selected.toString()));
+        };
+        ActionListener termPicked = e -> refresh.run();
+        Runnable reloadTerms = () -> {
+            // setModel/setSelectedItem fire the combo's action event - don't render for those
+            termFilter.removeActionListener(termPicked);
+            Object selected = termFilter.getSelectedItem();
+            List<String> terms = analyticsEngine.getHistory().getTerms();
+            terms.add(0, allTerms);
+            termFilter.setModel(new DefaultComboBoxModel<>(terms.toArray(new String[0])));
+            termFilter.setSelectedItem(terms.contains(selected) ? selected : allTerms);
+            termFilter.addActionListener(termPicked);
+        };
+        reloadTerms.run();
+        
         JButton refreshButton = createStyledButton("🔄 Refresh Analytics", ACCENT_COLOR);
         refreshButton.addActionListener(e -> {
-            analyticsArea.setText(generateAnalytics());
+            reloadTerms.run();  // terms added since the tab was opened
+            refresh.run();
+        });
+        
+        JButton exportButton = createStyledButton("💾 Export...", WARNING_COLOR);
+        exportButton.setToolTipText("Save per-student averages and ranks, or subject statistics, to .csv or .json");
+        TaskProgress exportProgress = new TaskProgress();
+        exportButton.addActionListener(e -> {
+            String[] choices = {"Students (averages, ranks)", "Subjects (statistics)"};
+            int choice = JOptionPane.showOptionDialog(this, "What should be exported?", "Export Analytics",
+                JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, choices, choices[0]);
+            if (choice == 0) {
+                exportData(DataExporter.Content.STUDENTS, "students.csv", exportButton, exportProgress);
+            } else if (choice == 1) {
+                exportData(DataExporter.Content.SUBJECTS, "subjects.csv", exportButton, exportProgress);
+            }
         });
         
         JPanel topPanel = new JPanel(new BorderLayout());
@@ -346,13 +660,64 @@ public class StudentAnalyticsSystem extends JFrame {
         
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
         buttonPanel.setBackground(DARK_BG);
+        buttonPanel.add(createLabel("Term:"));
+        buttonPanel.add(termFilter);
         buttonPanel.add(refreshButton);
-        topPanel.add(buttonPanel, BorderLayout.SOUTH);
+        buttonPanel.add(exportButton);
+        topPanel.add(buttonPanel, BorderLayout.CENTER);
+        topPanel.add(exportProgress, BorderLayout.SOUTH);
         
         panel.add(topPanel, BorderLayout.NORTH);
         panel.add(scrollPane, BorderLayout.CENTER);
         
-        analyticsArea.setText(generateAnalytics());
+        analyticsArea.setText(reportGenerator.generateAnalytics());
+        return panel;
+    }
+    
+    // Diagnostics - latencies and counters from PerformanceMetrics, refreshed every
+    // second while the tab is showing
+    private JPanel createDiagnosticsPanel() {
+        JPanel panel = new JPanel(new BorderLayout(15, 15));
+        panel.setBackground(DARK_BG);
+        panel.setBorder(new EmptyBorder(20, 20, 20, 20));
+        
+        JLabel titleLabel = new JLabel("Diagnostics", SwingConstants.CENTER);
+        titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 24));
+        titleLabel.setForeground(TEXT_COLOR);
+        titleLabel.setBorder(new EmptyBorder(0, 0, 15, 0));
+        
+        JTextArea metricsArea = new JTextArea();
+        metricsArea.setEditable(false);
+        metricsArea.setFont(new Font("Consolas", Font.PLAIN, 13));
+        metricsArea.setBackground(CARD_BG);
+        metricsArea.setForeground(TEXT_COLOR);
+        metricsArea.setCaretColor(TEXT_COLOR);
+        metricsArea.setBorder(new EmptyBorder(15, 15, 15, 15));
+        
+        Runnable refresh = () -> metricsArea.setText(PerformanceMetrics.format(studentManager, reportGenerator));
+        JButton resetButton = createStyledButton("♻️ Reset Counters", WARNING_COLOR);
+        resetButton.addActionListener(e -> {
+            PerformanceMetrics.reset();
+            refresh.run();
+        });
+        
+        metricsTimer = new javax.swing.Timer(1000, e -> {
+            if (panel.isShowing()) refresh.run();
+        });
+        metricsTimer.start();
+        
+        JPanel topPanel = new JPanel(new BorderLayout());
+        topPanel.setBackground(DARK_BG);
+        topPanel.add(titleLabel, BorderLayout.NORTH);
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        buttonPanel.setBackground(DARK_BG);
+        buttonPanel.add(resetButton);
+        topPanel.add(buttonPanel, BorderLayout.SOUTH);
+        
+        panel.add(topPanel, BorderLayout.NORTH);
+        panel.add(createStyledScrollPane(metricsArea), BorderLayout.CENTER);
+        
+        refresh.run();
         return panel;
     }
     
@@ -370,16 +735,21 @@ public class StudentAnalyticsSystem extends JFrame {
         JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
         controlPanel.setBackground(DARK_BG);
         
-        reportsStudentCombo = createStyledComboBox();
-        refreshStudentCombo(reportsStudentCombo);
+        reportsStudentPicker = createStudentPicker();
         
         JButton generateButton = createStyledButton("📄 Generate Report", ACCENT_COLOR);
         JButton refreshButton = createStyledButton("🔄 Refresh List", SUCCESS_COLOR);
+        JButton exportAllButton = createStyledButton("📦 All Reports...", WARNING_COLOR);
+        exportAllButton.setToolTipText("Write a report for every student to a folder or a zip file");
         
         controlPanel.add(createLabel("Select Student:"));
-        controlPanel.add(reportsStudentCombo);
+        controlPanel.add(reportsStudentPicker);
         controlPanel.add(generateButton);
         controlPanel.add(refreshButton);
+        controlPanel.add(exportAllButton);
+        
+        // only shown while "all reports" is running
+        TaskProgress exportProgress = new TaskProgress();
         
         JTextArea reportArea = new JTextArea();
         reportArea.setEditable(false);
@@ -392,24 +762,22 @@ public class StudentAnalyticsSystem extends JFrame {
         JScrollPane scrollPane = createStyledScrollPane(reportArea);
         
         generateButton.addActionListener(e -> {
-            String selected = (String) reportsStudentCombo.getSelectedItem();
-            if (selected != null) {
-                String rollNo = selected.split(" - ")[0];
-                Student student = studentManager.getStudent(rollNo);
-                if (student != null) {
-                    reportArea.setText(generateStudentReport(student));
-                }
+            Student student = reportsStudentPicker.getSelectedStudent();
+            if (student != null) {
+                reportArea.setText(reportGenerator.generateStudentReport(student));
             } else {
-                showStyledMessage(this, "No students available!", "Warning", JOptionPane.WARNING_MESSAGE);
+                showStyledMessage(this, "No student picked! Choose one from the list or type the exact roll number.", "Warning", JOptionPane.WARNING_MESSAGE);
             }
         });
         
-        refreshButton.addActionListener(e -> refreshStudentCombo(reportsStudentCombo));
+        refreshButton.addActionListener(e -> reportsStudentPicker.refresh());
+        exportAllButton.addActionListener(e -> exportAllReports(exportAllButton, exportProgress));
         
         JPanel topPanel = new JPanel(new BorderLayout());
         topPanel.setBackground(DARK_BG);
         topPanel.add(titleLabel, BorderLayout.NORTH);
         topPanel.add(controlPanel, BorderLayout.CENTER);
+        topPanel.add(exportProgress, BorderLayout.SOUTH);
         
         panel.add(topPanel, BorderLayout.NORTH);
         panel.add(scrollPane, BorderLayout.CENTER);
@@ -417,6 +785,157 @@ public class StudentAnalyticsSystem extends JFrame {
         return panel;
     }
     
+    // Every student's report to a folder or a zip - rendering and writing run on all
+    // cores in the background (see BulkReportWriter), the window stays usable meanwhile
+    private void exportAllReports(JButton exportButton, TaskProgress progress) {
+        JFileChooser chooser = new JFileChooser(new File("."));
+        chooser.setDialogTitle("Save all reports - pick a folder, or type a name ending in .zip");
+        chooser.setFileSelectionMode(JFileChooser.FILES_AND_DIRECTORIES);
+        chooser.setSelectedFile(new File("reports.zip"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path target = chooser.getSelectedFile().toPath();
+        if (!BulkReportWriter.isZip(target) && Files.exists(target) && !Files.isDirectory(target)) {
+            showStyledMessage(this, target.getFileName() + " is a file - pick a folder or a .zip name",
+                "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        RosterSnapshot students = studentManager.snapshot();  // the roster as of the click
+        
+        exportButton.setEnabled(false);
+        SwingWorker<BulkReportWriter.Result, Void> worker = new SwingWorker<BulkReportWriter.Result, Void>() {
+            @Override
+            protected BulkReportWriter.Result doInBackground() throws Exception {
+                return BulkReportWriter.write(reportGenerator, students, target,
+                    (done, total) -> setProgress(total == 0 ? 100 : (int) (done * 100L / total)),
+                    this::isCancelled);
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    BulkReportWriter.Result result = get();
+                    showStyledMessage(StudentAnalyticsSystem.this,
+                        String.format("Wrote %d reports to %s", result.written, target.toAbsolutePath()),
+                        "Reports Saved", JOptionPane.INFORMATION_MESSAGE);
+                } catch (java.util.concurrent.CancellationException ex) {
+                    showStyledMessage(StudentAnalyticsSystem.this,
+                        BulkReportWriter.isZip(target) ? "Cancelled - no zip was written."
+                            : "Cancelled - reports written so far were kept.",
+                        "Cancelled", JOptionPane.WARNING_MESSAGE);
+                } catch (java.util.concurrent.ExecutionException ex) {
+                    showStyledMessage(StudentAnalyticsSystem.this, "Writing reports failed: " + ex.getCause().getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    progress.finish();
+                    exportButton.setEnabled(true);
+                }
+            }
+        };
+        progress.start(worker, "Writing " + students.size() + " reports...");
+        worker.execute();
+    }
+    
+    // Marks or analytics to a .csv/.json file, streamed in the background (see DataExporter)
+    private void exportData(DataExporter.Content content, String defaultName,
+                            JButton exportButton, TaskProgress progress) {
+        JFileChooser chooser = new JFileChooser(new File("."));
+        chooser.setDialogTitle("Export - a name ending in .csv or .json");
+        chooser.setSelectedFile(new File(defaultName));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path target = chooser.getSelectedFile().toPath();
+        if (Files.isDirectory(target)) {
+            showStyledMessage(this, target.getFileName() + " is a folder - type a file name",
+                "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        RosterSnapshot students = studentManager.snapshot();  // the roster as of the click
+        
+        exportButton.setEnabled(false);
+        SwingWorker<DataExporter.Result, Void> worker = new SwingWorker<DataExporter.Result, Void>() {
+            @Override
+            protected DataExporter.Result doInBackground() throws Exception {
+                return DataExporter.export(students, analyticsEngine, content, target,
+                    (done, total) -> setProgress(total == 0 ? 100 : (int) (done * 100L / total)),
+                    this::isCancelled);
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    DataExporter.Result result = get();
+                    showStyledMessage(StudentAnalyticsSystem.this,
+                        String.format("Exported %,d rows to %s", result.rows, target.toAbsolutePath()),
+                        "Export Saved", JOptionPane.INFORMATION_MESSAGE);
+                } catch (java.util.concurrent.CancellationException ex) {
+                    showStyledMessage(StudentAnalyticsSystem.this, "Cancelled - no file was written.",
+                        "Cancelled", JOptionPane.WARNING_MESSAGE);
+                } catch (java.util.concurrent.ExecutionException ex) {
+                    showStyledMessage(StudentAnalyticsSystem.this, "Export failed: " + ex.getCause().getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    progress.finish();
+                    exportButton.setEnabled(true);
+                }
+            }
+        };
+        progress.start(worker, "Exporting...");
+        worker.execute();
+    }
+    
+    // Progress bar with a Cancel button for a background job (import, reports, exports) -
+    // hidden until a job runs. One job at a time: the caller disables its button.
+    private final class TaskProgress extends JPanel {
+        private final JProgressBar bar = new JProgressBar(0, 100);
+        private final JButton cancelButton = createStyledButton("✖ Cancel", ERROR_COLOR);
+        
+        TaskProgress() {
+            super(new BorderLayout(10, 0));
+            setBackground(DARK_BG);
+            bar.setStringPainted(true);
+            add(bar, BorderLayout.CENTER);
+            add(cancelButton, BorderLayout.EAST);
+            setVisible(false);
+        }
+        
+        // follows the worker's progress; Cancel doesn't interrupt - the worker notices
+        // isCancelled() and stops on its own
+        void start(SwingWorker<?, ?> worker, String text) {
+            start(worker, text, () -> worker.cancel(false));
+        }
+        
+        // same, with the job's own way of being asked to stop
+        void start(SwingWorker<?, ?> worker, String text, Runnable cancel) {
+            bar.setValue(0);
+            bar.setString(text);
+            worker.addPropertyChangeListener(evt -> {
+                if ("progress".equals(evt.getPropertyName())) {
+                    bar.setValue((Integer) evt.getNewValue());
+                    bar.setString(text + " " + evt.getNewValue() + "%");
+                }
+            });
+            cancelButton.addActionListener(e -> cancel.run());
+            setVisible(true);
+        }
+        
+        // the rest of the job can't be stopped part way (e.g. applying an import)
+        void uncancellable(String text) {
+            cancelButton.setEnabled(false);
+            bar.setIndeterminate(true);
+            bar.setString(text);
+        }
+        
+        void finish() {
+            setVisible(false);
+            bar.setIndeterminate(false);
+            cancelButton.setEnabled(true);
+            for (ActionListener l : cancelButton.getActionListeners()) cancelButton.removeActionListener(l);
+        }
+    }
+    
     // Helper method to create labels with consistent styling
     private JLabel createLabel(String text) {
         JLabel label = new JLabel(text);
@@ -438,12 +957,10 @@ public class StudentAnalyticsSystem extends JFrame {
         return field;
     }
     
-    private JComboBox<String> createStyledComboBox() {
-        JComboBox<String> combo = new JComboBox<>();
-        combo.setBackground(DARKER_BG);
-        combo.setForeground(TEXT_COLOR);
-        combo.setFont(new Font("Segoe UI", Font.PLAIN, 13));
-        return combo;
+    private StudentPicker createStudentPicker() {
+        StudentPicker picker = new StudentPicker(studentManager);
+        picker.applyTheme(DARKER_BG, TEXT_COLOR, new Font("Segoe UI", Font.PLAIN, 13));
+        return picker;
     }
     
     // Custom button with hover effect
@@ -470,7 +987,7 @@ public class StudentAnalyticsSystem extends JFrame {
         return button;
     }
     
-    private JTable createStyledTable(DefaultTableModel model) {
+    private JTable createStyledTable(TableModel model) {
         JTable table = new JTable(model);
         table.setBackground(CARD_BG);
         table.setForeground(TEXT_COLOR);
@@ -484,10 +1001,7 @@ public class StudentAnalyticsSystem extends JFrame {
         table.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 13));
         
         // center align text in cells
-        DefaultTableCellRenderer centerRenderer = new DefaultTableCellRenderer();
-        centerRenderer.setHorizontalAlignment(SwingConstants.CENTER);
-        centerRenderer.setBackground(CARD_BG);
-        centerRenderer.setForeground(TEXT_COLOR);
+        DefaultTableCellRenderer centerRenderer = createFormattingRenderer(null);
         
         for (int i = 0; i < table.getColumnCount(); i++) {
             table.getColumnModel().getColumn(i).setCellRenderer(centerRenderer);
@@ -496,6 +1010,24 @@ public class StudentAnalyticsSystem extends JFrame {
         return table;
     }
     
+    // Centered cell renderer; numbers are formatted here, only for the cells actually painted
+    private DefaultTableCellRenderer createFormattingRenderer(String format) {
+        DefaultTableCellRenderer renderer = new DefaultTableCellRenderer() {
+            @Override
+            protected void setValue(Object value) {
+                if (format != null && value instanceof Number) {
+                    setText(String.format(format, value));
+                } else {
+                    super.setValue(value);
+                }
+            }
+        };
+        renderer.setHorizontalAlignment(SwingConstants.CENTER);
+        renderer.setBackground(CARD_BG);
+        renderer.setForeground(TEXT_COLOR);
+        return renderer;
+    }
+    
     private JScrollPane createStyledScrollPane(Component component) {
         JScrollPane scrollPane = new JScrollPane(component);
         scrollPane.setBackground(CARD_BG);
@@ -511,185 +1043,41 @@ public class StudentAnalyticsSystem extends JFrame {
         dialog.setVisible(true);
     }
     
-    // Update table with current student data
-    private void refreshStudentTable(DefaultTableModel model) {
-        model.setRowCount(0);
-        for (Student student : studentManager.getAllStudents()) {
-            model.addRow(new Object[]{
-                student.getRollNumber(),
-                student.getName(),
-                student.getClassName(),
-                String.format("%.2f", student.getAverageScore()),
-                student.getGrade()
-            });
-        }
-    }
-    
-    private void refreshMarksTable(DefaultTableModel model) {
-        model.setRowCount(0);
-        for (Student student : studentManager.getAllStudents()) {
-            for (Mark mark : student.getMarks()) {
-                model.addRow(new Object[]{
-                    student.getRollNumber(),
-                    student.getName(),
-                    mark.getSubject(),
-                    mark.getMarksObtained(),
-                    mark.getMaxMarks(),
-                    String.format("%.2f%%", mark.getPercentage())
-                });
-            }
+    // Optional HTTP API next to the window (see StudentApiServer)
+    private void startApiServer(InetSocketAddress address) {
+        if (studentManager == null) {
+            pendingApiAddress = address;  // started once the data is loaded
+            return;
         }
-    }
-    
-    private void refreshStudentCombo(JComboBox<String> combo) {
-        combo.removeAllItems();
-        for (Student student : studentManager.getAllStudents()) {
-            combo.addItem(student.getRollNumber() + " - " + student.getName());
+        apiServer = new StudentApiServer(studentManager, analyticsEngine, reportGenerator,
+            System.getenv(StudentApiServer.TOKEN_ENV));
+        try {
+            apiServer.start(address);
+            System.out.println("HTTP API listening on " + apiServer.describe());
+        } catch (IOException e) {
+            System.err.println("Error starting HTTP API: " + e.getMessage());
+            apiServer = null;
         }
     }
     
-    // Generate analytics text - calculates various stats
-    private String generateAnalytics() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("╔════════════════════════════════════════════════════════════════╗\n");
-        sb.append("║        STUDENT PERFORMANCE ANALYTICS DASHBOARD                ║\n");
-        sb.append("╚════════════════════════════════════════════════════════════════╝\n\n");
-        
-        List<Student> students = studentManager.getAllStudents();
-        if (students.isEmpty()) {
-            sb.append("📊 No student data available.\n");
-            sb.append("\nℹ️  Add students and their marks to view analytics.\n");
-            return sb.toString();
-        }
-        
-        // Calculate overall stats
-        double totalAvg = students.stream()
-            .mapToDouble(Student::getAverageScore)
-            .average()
-            .orElse(0.0);
-        
-        double highestAvg = students.stream()
-            .mapToDouble(Student::getAverageScore)
-            .max()
-            .orElse(0.0);
-        
-        double lowestAvg = students.stream()
-            .mapToDouble(Student::getAverageScore)
-            .min()
-            .orElse(0.0);
-        
-        sb.append("📈 OVERALL STATISTICS\n");
-        sb.append("─────────────────────────────────────────────────────────────\n");
-        sb.append(String.format("   Total Students: %d\n", students.size()));
-        sb.append(String.format("   Class Average: %.2f%%\n", totalAvg));
-        sb.append(String.format("   Highest Average: %.2f%%\n", highestAvg));
-        sb.append(String.format("   Lowest Average: %.2f%%\n\n", lowestAvg));
-        
-        // Top performers list
-        sb.append("🏆 TOP 5 PERFORMERS\n");
-        sb.append("─────────────────────────────────────────────────────────────\n");
-        students.stream()
-            .sorted((s1, s2) -> Double.compare(s2.getAverageScore(), s1.getAverageScore()))
-            .limit(5)
-            .forEach(s -> sb.append(String.format("   %-20s (%s) - %.2f%% [%s]\n", 
-                s.getName(), s.getRollNumber(), s.getAverageScore(), s.getGrade())));
-        
-        // Students who need help
-        sb.append("\n⚠️  STUDENTS NEEDING ATTENTION (Below 50%)\n");
-        sb.append("─────────────────────────────────────────────────────────────\n");
-        List<Student> needingAttention = students.stream()
-            .filter(s -> s.getAverageScore() < 50)
-            .sorted((s1, s2) -> Double.compare(s1.getAverageScore(), s2.getAverageScore()))
-            .toList();
-        
-        if (needingAttention.isEmpty()) {
-            sb.append("   ✓ All students are performing well!\n");
-        } else {
-            needingAttention.forEach(s -> sb.append(String.format("   %-20s (%s) - %.2f%%\n", 
-                s.getName(), s.getRollNumber(), s.getAverageScore())));
-        }
-        
-        // Grade distribution chart
-        sb.append("\n📊 GRADE DISTRIBUTION\n");
-        sb.append("─────────────────────────────────────────────────────────────\n");
-        Map<String, Long> gradeCount = new TreeMap<>();
-        for (Student s : students) {
-            String grade = s.getGrade();
-            gradeCount.put(grade, gradeCount.getOrDefault(grade, 0L) + 1);
-        }
-        
-        String[] gradeOrder = {"A+", "A", "B", "C", "D", "F"};
-        for (String grade : gradeOrder) {
-            long count = gradeCount.getOrDefault(grade, 0L);
-            if (count > 0) {
-                double percentage = (count * 100.0) / students.size();
-                String bar = "█".repeat((int)(percentage / 5));  // visual bar chart
-                sb.append(String.format("   %s: %2d students (%5.1f%%) %s\n", 
-                    grade, count, percentage, bar));
-            }
-        }
-        
-        return sb.toString();
-    }
-    
-    // Generate detailed report for a single student
-    private String generateStudentReport(Student student) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("╔════════════════════════════════════════════════════════════════╗\n");
-        sb.append("║            STUDENT PERFORMANCE REPORT                          ║\n");
-        sb.append("╚════════════════════════════════════════════════════════════════╝\n\n");
-        
-        sb.append("👤 STUDENT INFORMATION\n");
-        sb.append("─────────────────────────────────────────────────────────────\n");
-        sb.append(String.format("   Name: %s\n", student.getName()));
-        sb.append(String.format("   Roll Number: %s\n", student.getRollNumber()));
-        sb.append(String.format("   Class: %s\n\n", student.getClassName()));
-        
-        if (student.getMarks().isEmpty()) {
-            sb.append("📝 No marks data available for this student.\n");
-            return sb.toString();
-        }
-        
-        sb.append("📚 SUBJECT-WISE PERFORMANCE\n");
-        sb.append("─────────────────────────────────────────────────────────────\n");
-        sb.append(String.format("   %-20s %10s %10s %12s\n", 
-            "Subject", "Obtained", "Maximum", "Percentage"));
-        sb.append("   " + "─".repeat(60) + "\n");
-        
-        for (Mark mark : student.getMarks()) {
-            sb.append(String.format("   %-20s %10.2f %10.2f %11.2f%%\n", 
-                mark.getSubject(), 
-                mark.getMarksObtained(), 
-                mark.getMaxMarks(), 
-                mark.getPercentage()));
-        }
-        
-        sb.append("\n📊 OVERALL PERFORMANCE\n");
-        sb.append("─────────────────────────────────────────────────────────────\n");
-        sb.append(String.format("   Average Score: %.2f%%\n", student.getAverageScore()));
-        sb.append(String.format("   Grade: %s\n", student.getGrade()));
-        
-        // Add personalized remark based on performance
-        String performance;
-        double avg = student.getAverageScore();
-        if (avg >= 90) performance = "Excellent! Outstanding performance! 🌟";
-        else if (avg >= 80) performance = "Very Good! Keep it up! 👏";
-        else if (avg >= 70) performance = "Good! Room for improvement. 💪";
-        else if (avg >= 60) performance = "Satisfactory. More effort needed. 📖";
-        else if (avg >= 50) performance = "Needs improvement. Keep working! 💡";
-        else performance = "Needs significant improvement. ⚠️";
-        
-        sb.append(String.format("   Remark: %s\n", performance));
-        
-        return sb.toString();
-    }
-    
     public static void main(String[] args) {
+        // java StudentAnalyticsSystem --http 8080  also serves the HTTP API (on localhost;
+        // --http 0.0.0.0:8080 for other machines too)
+        InetSocketAddress httpAddress = null;
+        if (args.length == 2 && args[0].equals("--http")) {
+            try {
+                httpAddress = StudentApiServer.address(args[1]);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+            }
+        }
+        InetSocketAddress address = httpAddress;
         // Start the app on EDT thread
         SwingUtilities.invokeLater(() -> {
             try {
                 StudentAnalyticsSystem system = new StudentAnalyticsSystem();
                 system.setVisible(true);
+                if (address != null) system.startApiServer(address);
             } catch (Exception e) {
                 e.printStackTrace();
                 System.err.println("Error starting application: " + e.getMessage());
@@ -699,36 +1087,143 @@ public class StudentAnalyticsSystem extends JFrame {
 }
 
 // Student data class - represents one student
+// Marks are stored column-wise in primitive arrays (subject id / obtained / max / date / term)
+// instead of one Mark object per entry - with millions of marks the object headers, references
+// and duplicate subject strings were most of the heap. Subject and term names live once in
+// SubjectTable / TermTable.
 class Student implements Serializable {
     private static final long serialVersionUID = 1L;
+    static final int NO_DATE = Integer.MIN_VALUE;  // epoch day of a mark entered without a date
+    static final int NO_TERM = -1;
+    private static final int[] NO_SUBJECTS = new int[0];
+    private static final double[] NO_MARKS = new double[0];
+    // versions are handed out from one counter, so two students (say one removed and a new
+    // one added under the same roll number) never share one - except 0, "no marks yet"
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    
+    // keep the original serialized layout (with a List<Mark>) so old data still loads
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("rollNumber", String.class),
+        new ObjectStreamField("name", String.class),
+        new ObjectStreamField("className", String.class),
+        new ObjectStreamField("marks", List.class)
+    };
+    
     private String rollNumber;
     private String name;
     private String className;
-    private List<Mark> marks;  // all marks for this student
+    
+    // All marks, as columns. Readers never lock: the arrays are only ever appended to
+    // (entries below count don't change once written) and each addMarks publishes a new
+    // Columns through the volatile field, so a reader always sees a complete set of marks
+    // with totals that match. Writers take the Student's monitor.
+    private static final class Columns {
+        static final Columns EMPTY = new Columns(NO_SUBJECTS, NO_MARKS, NO_MARKS, NO_SUBJECTS, NO_SUBJECTS, 0, 0.0, 0);
+        
+        final int[] subjectIds;
+        final double[] obtainedMarks;
+        final double[] maxMarks;
+        final int[] dates;  // assessment date as an epoch day, or NO_DATE
+        final int[] termIds;  // TermTable id, or NO_TERM
+        final int count;  // entries [0, count) are in use
+        // running totals so average/grade don't loop over all marks every time
+        final double percentageSum;
+        final String grade;
+        final long version;  // bumped on every change, see getVersion()
+        
+        Columns(int[] subjectIds, double[] obtainedMarks, double[] maxMarks, int[] dates, int[] termIds,
+                int count, double percentageSum, long version) {
+            this.subjectIds = subjectIds;
+            this.obtainedMarks = obtainedMarks;
+            this.maxMarks = maxMarks;
+            this.dates = dates;
+            this.termIds = termIds;
+            this.count = count;
+            this.percentageSum = percentageSum;
+            this.grade = gradeFor(count == 0 ? 0.0 : percentageSum / count);
+            this.version = version;
+        }
+    }
+    
+    private volatile Columns columns = Columns.EMPTY;
+    private boolean sharedColumns;  // arrays borrowed from the original (see copy())
     
     public Student(String rollNumber, String name, String className) {
         this.rollNumber = rollNumber;
         this.name = name;
         this.className = className;
-        this.marks = new ArrayList<>();
     }
     
     public void addMarks(String subject, double obtained, double max) {
-        marks.add(new Mark(subject, obtained, max));
+        addMarks(SubjectTable.idOf(subject), obtained, max, NO_DATE, NO_TERM);
     }
     
-    // Calculate average percentage across all subjects
+    // date and term are optional (null)
+    public void addMarks(String subject, double obtained, double max, LocalDate date, String term) {
+        addMarks(SubjectTable.idOf(subject), obtained, max, epochDay(date), termId(term));
+    }
+    
+    synchronized void addMarks(int subjectId, double obtained, double max, int date, int termId) {
+        Columns c = columns;
+        int[] subjectIds = c.subjectIds;
+        double[] obtainedMarks = c.obtainedMarks;
+        double[] maxMarks = c.maxMarks;
+        int[] dates = c.dates;
+        int[] termIds = c.termIds;
+        if (c.count == subjectIds.length || sharedColumns) {
+            int capacity = Math.max(4, c.count * 2);
+            subjectIds = Arrays.copyOf(subjectIds, capacity);
+            obtainedMarks = Arrays.copyOf(obtainedMarks, capacity);
+            maxMarks = Arrays.copyOf(maxMarks, capacity);
+            dates = Arrays.copyOf(dates, capacity);
+            termIds = Arrays.copyOf(termIds, capacity);
+            sharedColumns = false;
+        }
+        subjectIds[c.count] = subjectId;
+        obtainedMarks[c.count] = obtained;
+        maxMarks[c.count] = max;
+        dates[c.count] = date;
+        termIds[c.count] = termId;
+        columns = new Columns(subjectIds, obtainedMarks, maxMarks, dates, termIds, c.count + 1,
+            c.percentageSum + Mark.percentage(obtained, max), VERSIONS.incrementAndGet());
+    }
+    
+    static int epochDay(LocalDate date) {
+        return date == null ? NO_DATE : (int) date.toEpochDay();
+    }
+    
+    // blank counts as no term
+    static int termId(String term) {
+        return term == null || term.trim().isEmpty() ? NO_TERM : TermTable.idOf(term.trim());
+    }
+    
+    // Modification counter - goes up whenever something about the student changes
+    // (marks added, removed from the roster), so anything derived from a student can
+    // be cached against (roll number, version). Copies share the version of the original.
+    public long getVersion() {
+        return columns.version;
+    }
+    
+    // StudentManager calls this when the student is removed
+    synchronized void touch() {
+        Columns c = columns;
+        columns = new Columns(c.subjectIds, c.obtainedMarks, c.maxMarks, c.dates, c.termIds, c.count,
+            c.percentageSum, VERSIONS.incrementAndGet());
+    }
+    
+    // Average percentage across all subjects - O(1), kept up to date by addMarks
     public double getAverageScore() {
-        if (marks.isEmpty()) return 0.0;
-        return marks.stream()
-            .mapToDouble(Mark::getPercentage)
-            .average()
-            .orElse(0.0);
+        Columns c = columns;
+        if (c.count == 0) return 0.0;
+        return c.percentageSum / c.count;
     }
     
-    // Determine grade based on average
+    // Grade based on average, cached since it only changes when marks are added
     public String getGrade() {
-        double avg = getAverageScore();
+        return columns.grade;
+    }
+    
+    static String gradeFor(double avg) {
         if (avg >= 95) return "A+";
         if (avg >= 85) return "A";
         if (avg >= 75) return "B";
@@ -737,89 +1232,848 @@ class Student implements Serializable {
         return "F";
     }
     
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("rollNumber", rollNumber);
+        fields.put("name", name);
+        fields.put("className", className);
+        fields.put("marks", new ArrayList<>(getMarks()));
+        out.writeFields();
+    }
+    
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        rollNumber = (String) fields.get("rollNumber", null);
+        name = (String) fields.get("name", null);
+        className = (String) fields.get("className", null);
+        columns = Columns.EMPTY;
+        List<?> marks = (List<?>) fields.get("marks", null);
+        if (marks != null) {
+            for (Object o : marks) {
+                Mark mark = (Mark) o;
+                addMarks(mark.getSubject(), mark.getMarksObtained(), mark.getMaxMarks(), mark.getDate(), mark.getTerm());
+            }
+        }
+    }
+    
     // Getters
     public String getRollNumber() { return rollNumber; }
     public String getName() { return name; }
     public String getClassName() { return className; }
-    public List<Mark> getMarks() { return marks; }
+    public int getMarkCount() { return columns.count; }
+    
+    // per-mark accessors - read straight from the columns, nothing allocated.
+    // Marks are never removed, so an index below an earlier getMarkCount() stays valid.
+    public int getSubjectId(int index) { return checked(index).subjectIds[index]; }
+    public String getSubject(int index) { return SubjectTable.nameOf(getSubjectId(index)); }
+    public double getMarksObtained(int index) { return checked(index).obtainedMarks[index]; }
+    public double getMaxMarks(int index) { return checked(index).maxMarks[index]; }
+    public double getPercentage(int index) {
+        Columns c = checked(index);
+        return Mark.percentage(c.obtainedMarks[index], c.maxMarks[index]);
+    }
+    public int getEpochDay(int index) { return checked(index).dates[index]; }
+    public int getTermId(int index) { return checked(index).termIds[index]; }
+    // null for marks entered without one
+    public LocalDate getDate(int index) {
+        int day = getEpochDay(index);
+        return day == NO_DATE ? null : LocalDate.ofEpochDay(day);
+    }
+    public String getTerm(int index) {
+        int id = getTermId(index);
+        return id == NO_TERM ? null : TermTable.nameOf(id);
+    }
+    
+    // Mark objects are built on the fly - prefer the index accessors above in loops
+    public Mark getMark(int index) {
+        Columns c = checked(index);
+        return new Mark(SubjectTable.nameOf(c.subjectIds[index]), c.obtainedMarks[index], c.maxMarks[index],
+            c.dates[index] == NO_DATE ? null : LocalDate.ofEpochDay(c.dates[index]),
+            c.termIds[index] == NO_TERM ? null : TermTable.nameOf(c.termIds[index]));
+    }
+    
+    // read-only view, one Mark per get() - kept for callers that want objects.
+    // Fixed to the marks there were when it was created.
+    public List<Mark> getMarks() {
+        int size = columns.count;
+        return new AbstractList<Mark>() {
+            public Mark get(int index) {
+                if (index >= size) throw new IndexOutOfBoundsException("Mark " + index + " of " + size);
+                return getMark(index);
+            }
+            public int size() { return size; }
+        };
+    }
+    
+    private Columns checked(int index) {
+        Columns c = columns;
+        if (index < 0 || index >= c.count) {
+            throw new IndexOutOfBoundsException("Mark " + index + " of " + c.count);
+        }
+        return c;
+    }
+    
+    // Point-in-time copy for the background writer. Cheap - it shares the columns with
+    // this student (they're append-only) and only copies them if marks get added to it.
+    synchronized Student copy() {
+        Student copy = new Student(rollNumber, name, className);
+        copy.columns = columns;
+        copy.sharedColumns = true;
+        return copy;
+    }
+    
+    // what the student pickers show - display only, never parsed back
+    @Override
+    public String toString() {
+        return rollNumber + " - " + name;
+    }
 }
 
 // Mark class - represents marks for one subject
+// Students don't store these any more (see the columns in Student); it's the value
+// handed out by Student.getMark() and the type used in the old serialized format.
 class Mark implements Serializable {
     private static final long serialVersionUID = 1L;
     private String subject;
     private double marksObtained;
     private double maxMarks;
+    private LocalDate date;  // when it was assessed - null if not recorded (and in old data)
+    private String term;  // e.g. "Term 2" or "Midterm" - null if not recorded
+    private transient double percentage;  // computed once, not part of the serialized form
     
     public Mark(String subject, double marksObtained, double maxMarks) {
+        this(subject, marksObtained, maxMarks, null, null);
+    }
+    
+    public Mark(String subject, double marksObtained, double maxMarks, LocalDate date, String term) {
         this.subject = subject;
         this.marksObtained = marksObtained;
         this.maxMarks = maxMarks;
+        this.date = date;
+        this.term = term;
+        this.percentage = percentage(marksObtained, maxMarks);
     }
     
-    public double getPercentage() {
+    static double percentage(double marksObtained, double maxMarks) {
         return (marksObtained / maxMarks) * 100;
     }
     
+    public double getPercentage() {
+        return percentage;
+    }
+    
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        percentage = percentage(marksObtained, maxMarks);
+    }
+    
     public String getSubject() { return subject; }
     public double getMarksObtained() { return marksObtained; }
     public double getMaxMarks() { return maxMarks; }
+    public LocalDate getDate() { return date; }
+    public String getTerm() { return term; }
 }
 
 // Manager class - handles all student operations and data persistence
+// Mutations are queued as small journal records for the background writer; the full
+// snapshot is only rewritten when the journal gets long (compaction) or when saveData()
+// is called explicitly. Students in the snapshot are decoded lazily the first time
+// they're looked up.
+// The snapshot is split into one partition file per class (see PartitionManifest),
+// and a compaction only rewrites the partitions of classes that changed since the last one.
+// Only one StudentManager at a time can have a data directory open for writing (it holds
+// a lock on student_data.lock); batch jobs next to the app use openReadOnly().
 class StudentManager {
-    private Map<String, Student> students;  // using map for fast lookup by roll number
-    private static final String DATA_FILE = "student_data.ser";
+    // using map for fast lookup by roll number - concurrent, so lookups and iteration
+    // never lock and other threads (ingest jobs) can write while the UI reads
+    private final Map<String, Student> students = new ConcurrentHashMap<>();
+    private static final String MANIFEST_FILE = "student_data.manifest";
+    private static final String PARTITIONS_DIR = "student_data.parts";
+    private static final String DATA_FILE = "student_data.snap";  // single-file snapshot from before partitions
+    private static final String LEGACY_DATA_FILE = "student_data.ser";  // old ObjectOutputStream format
+    private static final String JOURNAL_FILE = "student_data.journal";
+    private static final String LOCK_FILE = "student_data.lock";
+    private static final int READ_ONLY_ATTEMPTS = 3;  // the app saving while we load makes us start over
+    private static final int COMPACT_THRESHOLD = 10_000;  // journal records before we fold into the snapshot
+    private static final long SHUTDOWN_FLUSH_TIMEOUT_MS = 10_000;
+    
+    private final Path dataDir;  // where the data files live
+    private final boolean readOnly;  // openReadOnly(): nothing is written, changes are refused
+    private FileChannel lockChannel;  // holds the directory lock while open for writing
+    private PersistenceWorker persistence;  // null when read-only
+    private long generation;  // generation of the newest snapshot (written or queued), guarded by writeGate
+    private final AtomicInteger journalRecords = new AtomicInteger();  // records queued since that snapshot
+    private final AtomicInteger studentCount = new AtomicInteger();
+    
+    // One partition per class - each is a SnapshotFile holding just that class's students.
+    // Partitions are only touched by saveData (write side of writeGate) and loading,
+    // except for the lazy decoding below.
+    private static final class Partition {
+        final int id;
+        final String className;
+        String fileName;  // current file in PARTITIONS_DIR, null until first written
+        volatile SnapshotFile file;  // mapped while some of its students are still undecoded
+        Map<String, Integer> slots = new ConcurrentHashMap<>();  // undecoded roll numbers -> slot
+        
+        Partition(int id, String className) {
+            this.id = id;
+            this.className = className;
+        }
+    }
+    
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();  // by class name
+    private int nextPartitionId;  // guarded by writeGate
+    private final Set<String> dirtyClasses = ConcurrentHashMap.newKeySet();  // changed since the last snapshot
+    // students still sitting undecoded in a partition file (roll number -> partition);
+    // getStudent() goes through this, so lookups work without knowing the class
+    private final Map<String, Partition> directory = new ConcurrentHashMap<>();
+    
+    // Every change holds the read side of this while it updates the student and queues
+    // its journal record. saveData() and runBatch() take the write side, so a snapshot
+    // is taken between changes, never in the middle of one - otherwise a record could
+    // land on the wrong side of the journal reset and be lost or replayed twice.
+    // Changes to one roll number are also serialized on its stripe of rollLocks (events are
+    // sent while holding it, so listeners see each student's changes in order). It's by roll
+    // number, not the Student object, so removing a student and adding a new one with the
+    // same roll can't overlap and reach the journal or the listeners out of order.
+    private final ReentrantReadWriteLock writeGate = new ReentrantReadWriteLock();
+    private static final int ROLL_LOCKS = 256;  // power of two
+    private final Object[] rollLocks = new Object[ROLL_LOCKS];
+    {
+        for (int i = 0; i < ROLL_LOCKS; i++) rollLocks[i] = new Object();
+    }
+    
+    private final List<StudentListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean inBatch;  // runBatch() in progress - no journal records or per-change events
+    private volatile StudentIndex index;  // class/grade/name indexes, built on the first query
+    // latest version of the roster for snapshot() readers - built on the first call, then
+    // every change swaps in a new version (null again after a batch or before anyone asked)
+    private final AtomicReference<RosterSnapshot> roster = new AtomicReference<>();
     
     public StudentManager() {
-        students = new HashMap<>();
-        loadData();  // load saved data on startup
+        this(Paths.get(""));  // current directory, like it always was
     }
     
+    // Fails (UncheckedIOException) if another program has the directory open, or if the
+    // data in it can't be read
+    public StudentManager(Path dataDir) {
+        this(dataDir, false);
+    }
+    
+    private StudentManager(Path dataDir, boolean readOnly) {
+        this.dataDir = dataDir;
+        this.readOnly = readOnly;
+        long start = System.nanoTime();
+        if (!readOnly) lockDataDir();
+        try {
+            loadData();  // load saved data on startup
+        } catch (RuntimeException e) {
+            unlockDataDir();
+            throw e;
+        }
+        PerformanceMetrics.DATA_LOAD.recordSince(start);
+    }
+    
+    // For reading the store while the app (or the HTTP API) may have it open - the
+    // nightly CLI runs. Takes no lock and changes nothing on disk: no journal repair,
+    // no cleanup of leftover files, no migration of old formats, no saving. Changes
+    // are refused with IllegalStateException. If the app saves while this loads, the
+    // files move under us and loading just starts over.
+    static StudentManager openReadOnly(Path dataDir) {
+        UncheckedIOException failure = null;
+        for (int attempt = 0; attempt < READ_ONLY_ATTEMPTS; attempt++) {
+            try {
+                return new StudentManager(dataDir, true);
+            } catch (UncheckedIOException e) {
+                failure = e;
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw failure;
+    }
+    
+    private void lockDataDir() {
+        Path lockFile = dataDir.resolve(LOCK_FILE);
+        try {
+            Files.createDirectories(lockFile.toAbsolutePath().getParent());
+            FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;  // this JVM already has it open
+            }
+            if (lock == null) {
+                channel.close();
+                throw new IOException("already open in another window or process");
+            }
+            lockChannel = channel;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't open the student data in "
+                + dataDir.toAbsolutePath() + ": " + e.getMessage(), e);
+        }
+    }
+    
+    // closing the channel releases the lock; safe to call twice
+    private synchronized void unlockDataDir() {
+        if (lockChannel == null) return;
+        try {
+            lockChannel.close();
+        } catch (IOException e) {
+            System.err.println("Error releasing " + LOCK_FILE + ": " + e.getMessage());
+        }
+        lockChannel = null;
+    }
+    
+    private void checkWritable() {
+        if (readOnly) throw new IllegalStateException("Student data was opened read-only");
+    }
+    
+    private Object rollLock(String rollNumber) {
+        int h = rollNumber.hashCode();
+        return rollLocks[(h ^ (h >>> 16)) & (ROLL_LOCKS - 1)];
+    }
+    
+    // Fails if the roll number is taken - the check and the insert are one atomic step,
+    // so two threads adding the same roll number can't both succeed
     public boolean addStudent(Student student) {
-        // check if student already exists
-        if (students.containsKey(student.getRollNumber())) {
-            return false;
+        checkWritable();
+        String roll = student.getRollNumber();
+        writeGate.readLock().lock();
+        try {
+            synchronized (rollLock(roll)) {
+                // roll numbers still waiting in the snapshot are taken too (that map only shrinks)
+                if (directory.containsKey(roll) || students.putIfAbsent(roll, student) != null) {
+                    return false;
+                }
+                studentCount.incrementAndGet();
+                dirtyClasses.add(student.getClassName());
+                if (inBatch) return true;
+                publish(student);
+                String name = student.getName(), cls = student.getClassName();
+                log(j -> j.appendAddStudent(roll, name, cls));
+                StudentIndex idx = index;
+                if (idx != null) idx.studentAdded(student);  // before listeners, they may query it
+                for (StudentListener l : listeners) l.studentAdded(student);
+            }
+        } finally {
+            writeGate.readLock().unlock();
         }
-        students.put(student.getRollNumber(), student);
-        saveData();
+        compactIfNeeded();
         return true;
     }
     
     public void removeStudent(String rollNumber) {
-        students.remove(rollNumber);
-        saveData();
+        checkWritable();
+        Student removed = getStudent(rollNumber);  // decodes it if needed - listeners want the object
+        if (removed == null) return;
+        writeGate.readLock().lock();
+        try {
+            synchronized (rollLock(rollNumber)) {
+                if (!students.remove(rollNumber, removed)) return;  // someone else got there first
+                studentCount.decrementAndGet();
+                removed.touch();  // anything cached for it is out of date
+                dirtyClasses.add(removed.getClassName());
+                if (inBatch) return;
+                unpublish(rollNumber);
+                log(j -> j.appendRemoveStudent(rollNumber));
+                StudentIndex idx = index;
+                if (idx != null) idx.studentRemoved(removed);
+                for (StudentListener l : listeners) l.studentRemoved(removed);
+            }
+        } finally {
+            writeGate.readLock().unlock();
+        }
+        compactIfNeeded();
+    }
+    
+    // Marks should go through here (not Student.addMarks directly) so they get persisted
+    public boolean addMarks(String rollNumber, String subject, double obtained, double max) {
+        return addMarks(rollNumber, subject, obtained, max, null, null);
+    }
+    
+    // with the assessment date and term - either can be null
+    public boolean addMarks(String rollNumber, String subject, double obtained, double max,
+                            LocalDate date, String term) {
+        checkWritable();
+        Student student = getStudent(rollNumber);
+        if (student == null) return false;
+        writeGate.readLock().lock();
+        try {
+            synchronized (rollLock(rollNumber)) {
+                if (students.get(rollNumber) != student) return false;  // removed meanwhile
+                student.addMarks(subject, obtained, max, date, term);
+                dirtyClasses.add(student.getClassName());
+                if (inBatch) return true;
+                publish(student);
+                int markIndex = student.getMarkCount() - 1;
+                int day = student.getEpochDay(markIndex);
+                String termName = student.getTerm(markIndex);  // trimmed, null if blank
+                log(j -> j.appendAddMarks(rollNumber, subject, obtained, max, day, termName));
+                StudentIndex idx = index;
+                if (idx != null) idx.marksAdded(student, markIndex);
+                for (StudentListener l : listeners) l.marksAdded(student, markIndex);
+            }
+        } finally {
+            writeGate.readLock().unlock();
+        }
+        compactIfNeeded();
+        return true;
+    }
+    
+    // Same check the Add Marks form does
+    static boolean isValidMarks(double marks, double maxMarks) {
+        return marks >= 0 && maxMarks > 0 && marks <= maxMarks;
+    }
+    
+    // Runs a bunch of changes as one unit (bulk import): nothing is journaled per change,
+    // listeners get a single studentsReloaded() and everything is persisted with one snapshot.
+    // Changes from other threads wait until the batch is done.
+    public void runBatch(Runnable changes) {
+        checkWritable();
+        writeGate.writeLock().lock();
+        try {
+            if (inBatch) {
+                changes.run();
+                return;
+            }
+            inBatch = true;
+            try {
+                changes.run();
+            } finally {
+                inBatch = false;
+                index = null;  // cheaper to rebuild on the next query than to patch
+                roster.set(null);
+                saveData();
+                for (StudentListener l : listeners) l.studentsReloaded();
+            }
+        } finally {
+            writeGate.writeLock().unlock();
+        }
+    }
+    
+    // Runs action with no change in progress, e.g. to read a listener's starting state
+    // and register it without missing (or seeing twice) a change made in between.
+    public void withWritesPaused(Runnable action) {
+        writeGate.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            writeGate.writeLock().unlock();
+        }
+    }
+    
+    // Same, but doesn't sit out a runBatch() (a big import can take a while) - returns false
+    // instead. The batch ends with studentsReloaded(), so listeners can re-read then.
+    public boolean tryWithWritesPaused(Runnable action) {
+        try {
+            while (!writeGate.writeLock().tryLock(10, TimeUnit.MILLISECONDS)) {
+                if (inBatch) return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        try {
+            action.run();
+            return true;
+        } finally {
+            writeGate.writeLock().unlock();
+        }
+    }
+    
+    // Listeners are called on whichever thread made the change, while that roll number is
+    // locked - they should be quick, and Swing code has to hop over to the EDT itself
+    public void addStudentListener(StudentListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeStudentListener(StudentListener listener) {
+        listeners.remove(listener);
+    }
+    
+    // save status is reported on the writer thread
+    public void addSaveStatusListener(PersistenceWorker.StatusListener listener) {
+        if (persistence != null) persistence.addStatusListener(listener);
     }
     
     public Student getStudent(String rollNumber) {
-        return students.get(rollNumber);
+        Student student = students.get(rollNumber);
+        if (student == null && !directory.isEmpty()) {
+            // one thread decodes it, anyone else asking for the same student waits for that
+            student = students.computeIfAbsent(rollNumber, this::decode);
+        }
+        return student;
+    }
+    
+    private Student decode(String rollNumber) {
+        Partition partition = directory.remove(rollNumber);
+        if (partition == null) return null;
+        Integer slot = partition.slots.remove(rollNumber);
+        SnapshotFile file = partition.file;
+        return slot == null || file == null ? null : file.readStudent(slot);
     }
     
+    // Secondary index queries - these only touch the matching students
+    public List<Student> findByClass(String className) {
+        return index().findByClass(className);
+    }
+    
+    public List<Student> findByGrade(String grade) {
+        return index().findByGrade(grade);
+    }
+    
+    public SortedSet<String> getClassNames() {
+        return index().getClassNames();
+    }
+    
+    // roll number prefix or name word prefix, at most limit results
+    public List<Student> searchStudents(String text, int limit) {
+        return index().search(text, limit);
+    }
+    
+    private StudentIndex index() {
+        StudentIndex idx = index;
+        if (idx == null) {
+            // built with changes paused, so it can't miss one that happens while it's read
+            writeGate.writeLock().lock();
+            try {
+                idx = index;
+                if (idx == null) {
+                    idx = new StudentIndex(getAllStudents());
+                    index = idx;
+                }
+            } finally {
+                writeGate.writeLock().unlock();
+            }
+        }
+        return idx;
+    }
+    
+    // Live students, in a new list - for code that keeps them around and follows their
+    // changes through the listener events (indexes, table rows)
     public List<Student> getAllStudents() {
+        decodeAll();
         return new ArrayList<>(students.values());
     }
     
-    // Save to file using serialization
+    // The whole roster as it is right now, frozen - safe to read at leisure from any
+    // thread while changes carry on, and it never changes under you. Free to call: it's
+    // the current version, not a copy (only the very first call builds it). The students
+    // in it are copies, so compare them by roll number, not identity.
+    public RosterSnapshot snapshot() {
+        RosterSnapshot current = roster.get();
+        if (current != null) return current;
+        writeGate.writeLock().lock();  // no changes while the first version is put together
+        try {
+            current = roster.get();
+            if (current == null) {
+                decodeAll();
+                current = RosterSnapshot.of(students.values());
+                roster.set(current);
+            }
+        } finally {
+            writeGate.writeLock().unlock();
+        }
+        return current;
+    }
+    
+    // Called with the roll number locked after every change. Changes to different students
+    // race on the compare-and-set; each new version only copies the path to the student.
+    private void publish(Student student) {
+        Student frozen = student.copy();
+        RosterSnapshot current;
+        do {
+            current = roster.get();
+            if (current == null) return;  // nobody has asked for one yet
+        } while (!roster.compareAndSet(current, current.with(frozen)));
+    }
+    
+    private void unpublish(String rollNumber) {
+        RosterSnapshot current;
+        do {
+            current = roster.get();
+            if (current == null) return;
+        } while (!roster.compareAndSet(current, current.without(rollNumber)));
+    }
+    
+    public int getStudentCount() {
+        return studentCount.get();
+    }
+    
+    private void decodeAll() {
+        if (directory.isEmpty()) return;
+        for (String rollNumber : directory.keySet()) {
+            getStudent(rollNumber);
+        }
+    }
+    
+    private void log(PersistenceWorker.JournalOp op) {
+        persistence.submit(op);
+        journalRecords.incrementAndGet();
+    }
+    
+    // Called after a change has let go of its locks - the snapshot needs the write side
+    private void compactIfNeeded() {
+        if (journalRecords.get() < COMPACT_THRESHOLD) return;
+        if (writeGate.getReadHoldCount() > 0) return;  // change made from a listener, the outer one will do it
+        writeGate.writeLock().lock();
+        try {
+            if (journalRecords.get() >= COMPACT_THRESHOLD) saveData();  // unless another thread just did
+        } finally {
+            writeGate.writeLock().unlock();
+        }
+    }
+    
+    // Queues a snapshot (compaction). The students are copied here with changes paused,
+    // so the writer sees a consistent picture; it's queued behind the journal records
+    // already submitted, and the journal is emptied once the snapshot is safely on disk.
+    // Only classes changed since the last snapshot get a new partition file - the others
+    // keep theirs and are just listed in the new manifest again. If snapshot() is in use
+    // its students are already frozen and are used as they are; otherwise copies are made
+    // (they share the mark columns). Either way the pause is short - encoding and writing
+    // happen on the writer thread.
     public void saveData() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(
-                new FileOutputStream(DATA_FILE))) {
-            oos.writeObject(students);
+        checkWritable();
+        writeGate.writeLock().lock();
+        try {
+            long newGeneration = ++generation;
+            Map<String, List<Student>> changed = new HashMap<>();
+            for (String className : dirtyClasses) {
+                changed.put(className, new ArrayList<>());
+                // a changed partition is rewritten in full - decode what's still in its file
+                Partition partition = partitions.get(className);
+                if (partition != null) {
+                    for (String rollNumber : partition.slots.keySet()) getStudent(rollNumber);
+                }
+            }
+            dirtyClasses.clear();
+            if (!changed.isEmpty()) {
+                RosterSnapshot frozen = roster.get();
+                for (Student s : frozen != null ? frozen : students.values()) {
+                    List<Student> copies = changed.get(s.getClassName());
+                    if (copies != null) copies.add(frozen != null ? s : s.copy());
+                }
+            }
+            
+            List<String> obsolete = new ArrayList<>();  // files the new manifest no longer uses
+            Map<String, List<Student>> toWrite = new HashMap<>();  // file name -> students
+            for (Map.Entry<String, List<Student>> e : changed.entrySet()) {
+                Partition partition = partitions.computeIfAbsent(e.getKey(),
+                    c -> new Partition(nextPartitionId++, c));
+                partition.file = null;  // everything is decoded now, no need to hold on to the mapping
+                if (partition.fileName != null) obsolete.add(partition.fileName);
+                if (e.getValue().isEmpty()) {
+                    partitions.remove(e.getKey());  // class has no students left
+                } else {
+                    partition.fileName = PartitionManifest.partitionFileName(partition.id, newGeneration);
+                    toWrite.put(partition.fileName, e.getValue());
+                }
+            }
+            List<PartitionManifest.Entry> entries = new ArrayList<>();
+            for (Partition partition : partitions.values()) {
+                if (partition.fileName != null) {
+                    entries.add(new PartitionManifest.Entry(partition.id, partition.className, partition.fileName));
+                }
+            }
+            PartitionManifest manifest = new PartitionManifest(newGeneration, nextPartitionId, entries);
+            journalRecords.set(0);
+            Path partitionDir = dataDir.resolve(PARTITIONS_DIR);
+            Path manifestFile = dataDir.resolve(MANIFEST_FILE);
+            persistence.submit(j -> {
+                Files.createDirectories(partitionDir);
+                for (Map.Entry<String, List<Student>> e : toWrite.entrySet()) {
+                    SnapshotFile.write(partitionDir.resolve(e.getKey()), e.getValue(), newGeneration);
+                }
+                manifest.write(manifestFile);  // the switch-over
+                j.reset(newGeneration);
+                for (String fileName : obsolete) deleteQuietly(partitionDir.resolve(fileName));
+            });
+        } finally {
+            writeGate.writeLock().unlock();
+        }
+    }
+    
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
         } catch (IOException e) {
-            System.err.println("Error saving data: " + e.getMessage());
+            // still mapped somewhere (Windows) - it's cleaned up on the next start
+            System.err.println("Error deleting " + file.getFileName() + ": " + e.getMessage());
         }
     }
     
-    // Load from file
-    @SuppressWarnings("unchecked")
+    // Waits until everything queued so far has been written and synced
+    public boolean flush() {
+        return persistence == null || persistence.flush(SHUTDOWN_FLUSH_TIMEOUT_MS);
+    }
+    
+    // Flushes and stops the background writer, then lets go of the data directory -
+    // called on window close and from the shutdown hook
+    public void close() {
+        if (persistence != null && !persistence.shutdown(SHUTDOWN_FLUSH_TIMEOUT_MS)) {
+            System.err.println("Warning: not all changes could be saved before exit");
+        }
+        unlockDataDir();
+    }
+    
+    // Replay runs in the constructor, before anyone else can see us - no locking needed.
+    // Classes touched by the journal count as changed, so the next snapshot includes them.
+    private ChangeJournal.Handler replayHandler() {
+        return new ChangeJournal.Handler() {
+            public void addStudent(String rollNumber, String name, String className) {
+                if (!students.containsKey(rollNumber) && !directory.containsKey(rollNumber)) {
+                    students.put(rollNumber, new Student(rollNumber, name, className));
+                    dirtyClasses.add(className);
+                }
+            }
+            public void removeStudent(String rollNumber) {
+                Student removed = students.remove(rollNumber);
+                if (removed != null) dirtyClasses.add(removed.getClassName());
+                Partition partition = directory.remove(rollNumber);
+                if (partition != null) {
+                    partition.slots.remove(rollNumber);
+                    dirtyClasses.add(partition.className);
+                }
+            }
+            public void addMarks(String rollNumber, String subject, double obtained, double max, int date, String term) {
+                Student student = getStudent(rollNumber);
+                if (student != null) {
+                    student.addMarks(SubjectTable.idOf(subject), obtained, max, date, Student.termId(term));
+                    dirtyClasses.add(student.getClassName());
+                }
+            }
+        };
+    }
+    
+    // Open the partitions, then replay whatever the journal has on top of them.
+    // Data in the older formats (one snapshot file, or the serialized map before that)
+    // is read in full and written out as partitions straight away.
+    // If any of it can't be read we don't start at all: carrying on with what's left
+    // would let the next save replace the unreadable files, and the journal (whose
+    // changes sit on top of them) would be emptied with it.
     private void loadData() {
-        File file = new File(DATA_FILE);
-        if (!file.exists()) return;  // no saved data yet
+        Path manifestFile = dataDir.resolve(MANIFEST_FILE);
+        String migrating = null;  // old-format file we're converting from
+        Path loading = manifestFile;
+        try {
+            if (Files.exists(manifestFile)) {
+                openPartitions(PartitionManifest.read(manifestFile));
+            } else if (Files.exists(loading = dataDir.resolve(DATA_FILE))) {
+                loadSingleSnapshot(loading);
+                migrating = DATA_FILE;
+            } else if (Files.exists(loading = dataDir.resolve(LEGACY_DATA_FILE))) {
+                loadLegacyData(loading);
+                migrating = LEGACY_DATA_FILE;
+            }
+        } catch (IOException e) {
+            throw cantLoad(loading, e);
+        }
         
+        Path journalFile = dataDir.resolve(JOURNAL_FILE);
+        if (readOnly) {
+            try {
+                journalRecords.set(ChangeJournal.replayReadOnly(journalFile, generation, replayHandler()));
+                // a save that finished meanwhile folded the journal into files we didn't load
+                if (Files.exists(manifestFile) && PartitionManifest.read(manifestFile).generation != generation) {
+                    throw new IOException("saved by another program while loading");
+                }
+            } catch (IOException e) {
+                throw cantLoad(journalFile, e);
+            }
+            studentCount.set(students.size() + directory.size());
+            return;
+        }
+        ChangeJournal journal;
+        try {
+            journal = ChangeJournal.open(journalFile, generation, replayHandler());
+            journalRecords.set(journal.getRecordCount());
+        } catch (IOException e) {
+            throw cantLoad(journalFile, e);
+        }
+        studentCount.set(students.size() + directory.size());
+        // if the journal has to be reopened after a write error we're past replaying,
+        // so it opens without applying anything
+        long openGeneration = generation;
+        persistence = new PersistenceWorker(journal,
+            () -> ChangeJournal.open(journalFile, openGeneration, null));
+        
+        if (migrating != null) {
+            for (Student s : students.values()) dirtyClasses.add(s.getClassName());
+            saveData();
+            // only moved out of the way once the partitions are safely written
+            Path oldFile = dataDir.resolve(migrating);
+            Path renamed = dataDir.resolve(migrating + ".migrated");
+            persistence.submit(j -> Files.move(oldFile, renamed, StandardCopyOption.REPLACE_EXISTING));
+        }
+    }
+    
+    // Maps each partition file and reads its roll numbers into the directory - the
+    // students themselves are decoded when first looked up. A partition that can't be
+    // opened fails the whole load: registered empty, its class would look like it has
+    // no students and the next save would replace (and delete) its file.
+    private void openPartitions(PartitionManifest manifest) throws IOException {
+        generation = manifest.generation;
+        nextPartitionId = manifest.nextPartitionId;
+        Path partitionDir = dataDir.resolve(PARTITIONS_DIR);
+        Set<String> inUse = new HashSet<>();
+        for (PartitionManifest.Entry entry : manifest.entries) {
+            Partition partition = new Partition(entry.id, entry.className);
+            partition.fileName = entry.fileName;
+            inUse.add(entry.fileName);
+            try {
+                partition.file = SnapshotFile.open(partitionDir.resolve(entry.fileName));
+                partition.slots = partition.file.readRollIndex();
+            } catch (IOException e) {
+                throw new IOException("class " + entry.className + " in " + entry.fileName + ": " + e.getMessage(), e);
+            }
+            for (String rollNumber : partition.slots.keySet()) directory.put(rollNumber, partition);
+            partitions.put(entry.className, partition);
+        }
+        // leftovers from a save that was cut short (or one still running, if we're read-only)
+        if (readOnly || !Files.isDirectory(partitionDir)) return;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(partitionDir)) {
+            for (Path file : files) {
+                if (!inUse.contains(file.getFileName().toString())) deleteQuietly(file);
+            }
+        } catch (IOException e) {
+            System.err.println("Error cleaning up partition files: " + e.getMessage());
+        }
+    }
+    
+    // student_data.snap from before partitions - same generation, so its journal still replays
+    private void loadSingleSnapshot(Path dataFile) throws IOException {
+        SnapshotFile file = SnapshotFile.open(dataFile);
+        generation = file.getGeneration();
+        for (Map.Entry<String, Integer> e : file.readRollIndex().entrySet()) {
+            students.put(e.getKey(), file.readStudent(e.getValue()));
+        }
+    }
+    
+    // The old serialized map. Keeps the same generation so a journal written against
+    // the old file still replays.
+    @SuppressWarnings("unchecked")
+    private void loadLegacyData(Path legacyFile) throws IOException {
         try (ObjectInputStream ois = new ObjectInputStream(
-                new FileInputStream(DATA_FILE))) {
-            students = (Map<String, Student>) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
-            System.err.println("Error loading data: " + e.getMessage());
+                new BufferedInputStream(Files.newInputStream(legacyFile)))) {
+            students.putAll((Map<String, Student>) ois.readObject());
+            try {
+                generation = ois.readLong();
+            } catch (EOFException e) {
+                generation = 0;  // file written before the journal existed
+            }
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unexpected class in " + legacyFile.getFileName() + ": " + e.getMessage(), e);
         }
     }
+    
+    private static UncheckedIOException cantLoad(Path file, IOException e) {
+        return new UncheckedIOException("Can't load " + file.getFileName() + " (" + e.getMessage()
+            + ") - nothing was changed; restore or remove the file and start again", e);
+    }
 }
@@ -0,0 +1,522 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Optional read-mostly HTTP API over the same StudentManager the desktop app uses,
+// so other teachers can look at reports from a browser. Uses the JDK's built-in server.
+// Each request runs on its own virtual thread (Java 21+) or a pooled thread on older
+// JDKs - never on the EDT, the store is safe to read from any thread.
+//
+//   GET  /api/students?q=ra&limit=50     roll/name prefix search (JSON), or ?class=10-A
+//   GET  /api/students/{roll}            one student with all marks (JSON)
+//   POST /api/students/{roll}/marks      subject=..&marks=..&maxMarks=.. (form or query string)
+//   GET  /api/students/{roll}/report     the student's report (text)
+//   GET  /api/analytics                  the analytics dashboard (text)
+//   GET  /api/analytics/summary          class average, grades, subjects (JSON)
+//   GET  /api/export/{marks|students|subjects}?format=csv|json   streamed, see DataExporter
+//
+// Listens on localhost only unless given a host to bind to ("0.0.0.0:8080" for every
+// interface). POST requests need STUDENT_API_TOKEN set on the server and
+// "Authorization: Bearer <token>" - without a token the API is read-only, even on
+// localhost (any web page in the user's browser can send a form POST to localhost).
+// There's no other access control - only open the port on a network you trust.
+class StudentApiServer {
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 1000;
+    private static final int MAX_BODY = 64 * 1024;  // a POST is a handful of form fields
+    static final String TOKEN_ENV = "STUDENT_API_TOKEN";
+
+    private final StudentManager manager;
+    private final AnalyticsEngine analytics;
+    private final ReportGenerator reports;
+    private final String token;  // null = read-only, POSTs are refused
+    private HttpServer server;
+    private ExecutorService executor;
+
+    StudentApiServer(StudentManager manager, AnalyticsEngine analytics, ReportGenerator reports, String token) {
+        this.manager = manager;
+        this.analytics = analytics;
+        this.reports = reports;
+        this.token = token == null || token.isEmpty() ? null : token;
+    }
+
+    // "8080" is localhost:8080, "HOST:8080" binds to that host ("0.0.0.0:8080" for everything)
+    static InetSocketAddress address(String spec) {
+        int colon = spec.lastIndexOf(':');
+        int port;
+        try {
+            port = Integer.parseInt(spec.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            port = -1;
+        }
+        if (port < 0 || port > 65535) throw new IllegalArgumentException("Invalid port: " + spec);
+        if (colon < 0) return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        String host = spec.substring(0, colon);
+        if (host.startsWith("[") && host.endsWith("]")) host = host.substring(1, host.length() - 1);  // [::1]:8080
+        InetSocketAddress address = new InetSocketAddress(host, port);
+        if (address.isUnresolved()) throw new IllegalArgumentException("Unknown host: " + host);
+        return address;
+    }
+
+    public void start(InetSocketAddress address) throws IOException {
+        server = HttpServer.create(address, 1024);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/students", this::handleStudents);
+        server.createContext("/api/analytics", this::handleAnalytics);
+        server.createContext("/api/export", this::handleExport);
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // for the startup message, e.g. "127.0.0.1:8080"
+    public String describe() {
+        InetSocketAddress address = server.getAddress();
+        return (address.getAddress().isAnyLocalAddress() ? "port " + address.getPort() + " on all interfaces"
+                : address.getAddress().getHostAddress() + ":" + address.getPort())
+            + (token != null ? "" : " (read-only - set " + TOKEN_ENV + " to allow adding marks)");
+    }
+
+    public void stop() {
+        if (server == null) return;
+        server.stop(1);  // let requests in flight finish, at most a second
+        executor.shutdown();
+        server = null;
+    }
+
+    // thread per request - virtual threads when the JDK has them (21+), looked up
+    // reflectively so the app still builds and runs on 17
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger n = new AtomicInteger();
+            int threads = Math.max(16, Runtime.getRuntime().availableProcessors() * 8);
+            return Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "api-request-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    static boolean usesVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    // --- /api/students ---
+
+    private void handleStudents(HttpExchange ex) throws IOException {
+        try {
+            String[] path = pathAfter(ex, "/api/students");
+            if (path.length == 0) {
+                if (!requireMethod(ex, "GET")) return;
+                listStudents(ex);
+                return;
+            }
+            Student student = manager.getStudent(path[0]);
+            if (student == null) {
+                sendError(ex, 404, "No student with roll number " + path[0]);
+                return;
+            }
+            if (path.length == 1) {
+                if (!requireMethod(ex, "GET")) return;
+                send(ex, 200, "application/json", studentJson(student, true));
+            } else if (path.length == 2 && path[1].equals("report")) {
+                if (!requireMethod(ex, "GET")) return;
+                send(ex, 200, "text/plain", reports.generateStudentReport(student));
+            } else if (path.length == 2 && path[1].equals("marks")) {
+                if (!requireMethod(ex, "POST") || !authorized(ex)) return;
+                addMarks(ex, student);
+            } else {
+                sendError(ex, 404, "Not found");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error handling " + ex.getRequestURI() + ": " + e.getMessage());
+            sendError(ex, 500, "Internal error");
+        }
+    }
+
+    private void listStudents(HttpExchange ex) throws IOException {
+        Map<String, String> params = queryParams(ex.getRequestURI().getRawQuery());
+        int limit;
+        try {
+            limit = Math.min(MAX_LIMIT, Integer.parseInt(params.getOrDefault("limit", "" + DEFAULT_LIMIT)));
+        } catch (NumberFormatException e) {
+            sendError(ex, 400, "limit must be a number");
+            return;
+        }
+        List<Student> found;
+        if (params.containsKey("class")) {
+            found = manager.findByClass(params.get("class"));
+            found.sort(Comparator.comparing(Student::getRollNumber));
+            if (found.size() > limit) found = found.subList(0, Math.max(0, limit));
+        } else {
+            found = manager.searchStudents(params.getOrDefault("q", ""), limit);
+        }
+        StringBuilder json = new StringBuilder("[");
+        for (Student s : found) {
+            if (json.length() > 1) json.append(',');
+            json.append(studentJson(s, false));
+        }
+        send(ex, 200, "application/json", json.append(']').toString());
+    }
+
+    private void addMarks(HttpExchange ex, Student student) throws IOException {
+        Map<String, String> params = queryParams(ex.getRequestURI().getRawQuery());
+        String body;
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY + 1);
+            if (bytes.length > MAX_BODY) {
+                sendError(ex, 413, "Request body over " + MAX_BODY / 1024 + " KB");
+                return;
+            }
+            body = new String(bytes, StandardCharsets.UTF_8);
+        }
+        params.putAll(queryParams(body));
+
+        String subject = params.getOrDefault("subject", "").trim();
+        if (subject.isEmpty()) {
+            sendError(ex, 400, "subject is required");
+            return;
+        }
+        double marks, maxMarks;
+        try {
+            marks = Double.parseDouble(params.getOrDefault("marks", ""));
+            maxMarks = Double.parseDouble(params.getOrDefault("maxMarks", "100"));
+        } catch (NumberFormatException e) {
+            sendError(ex, 400, "marks and maxMarks must be numbers");
+            return;
+        }
+        if (!StudentManager.isValidMarks(marks, maxMarks)) {
+            sendError(ex, 400, "invalid marks, need 0 <= marks <= maxMarks");
+            return;
+        }
+        LocalDate date = null;  // optional, like term
+        if (!params.getOrDefault("date", "").isEmpty()) {
+            try {
+                date = LocalDate.parse(params.get("date"));
+            } catch (DateTimeParseException e) {
+                sendError(ex, 400, "date must be YYYY-MM-DD");
+                return;
+            }
+        }
+        if (!manager.addMarks(student.getRollNumber(), subject, marks, maxMarks, date, params.get("term"))) {
+            sendError(ex, 404, "Student was removed");
+            return;
+        }
+        send(ex, 201, "application/json", studentJson(student, true));
+    }
+
+    // --- /api/analytics ---
+
+    private void handleAnalytics(HttpExchange ex) throws IOException {
+        try {
+            if (!requireMethod(ex, "GET")) return;
+            String[] path = pathAfter(ex, "/api/analytics");
+            if (path.length == 0) {
+                analytics(ex);
+            } else if (path.length == 1 && path[0].equals("terms")) {
+                terms(ex);
+            } else if (path.length == 1 && path[0].equals("summary")) {
+                send(ex, 200, "application/json", summaryJson());
+            } else if (path.length == 1 && path[0].equals("rankings")) {
+                rankings(ex);
+            } else {
+                sendError(ex, 404, "Not found");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error handling " + ex.getRequestURI() + ": " + e.getMessage());
+            sendError(ex, 500, "Internal error");
+        }
+    }
+
+    // ?term=Term%202 for one term, ?from=2026-01-01&to=2026-03-31 for a date range
+    private void analytics(HttpExchange ex) throws IOException {
+        Map<String, String> params = queryParams(ex.getRequestURI().getRawQuery());
+        if (params.containsKey("from") || params.containsKey("to")) {
+            LocalDate from, to;
+            try {
+                from = LocalDate.parse(params.getOrDefault("from", ""));
+                to = LocalDate.parse(params.getOrDefault("to", ""));
+            } catch (DateTimeParseException e) {
+                sendError(ex, 400, "from and to must both be dates (YYYY-MM-DD)");
+                return;
+            }
+            send(ex, 200, "text/plain", reports.generateAnalytics(from, to));
+        } else {
+            send(ex, 200, "text/plain", reports.generateAnalytics(params.get("term")));
+        }
+    }
+
+    private void terms(HttpExchange ex) throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (String term : analytics.getHistory().getTerms()) {
+            if (json.length() > 1) json.append(',');
+            json.append(string(term));
+        }
+        send(ex, 200, "application/json", json.append(']').toString());
+    }
+
+    // ?from=1&to=20 (positions, both included), optionally &class=10-A
+    private void rankings(HttpExchange ex) throws IOException {
+        Map<String, String> params = queryParams(ex.getRequestURI().getRawQuery());
+        int from, to;
+        try {
+            from = Math.max(1, Integer.parseInt(params.getOrDefault("from", "1")));
+            to = Integer.parseInt(params.getOrDefault("to", "" + (from + DEFAULT_LIMIT - 1)));
+        } catch (NumberFormatException e) {
+            sendError(ex, 400, "from and to must be numbers");
+            return;
+        }
+        to = Math.min(to, from + MAX_LIMIT - 1);
+        String className = params.get("class");
+        List<Student> ranked = className == null
+            ? analytics.getStudentsByRank(from, to)
+            : analytics.getClassStudentsByRank(className, from, to);
+        StringBuilder json = new StringBuilder("[");
+        for (Student s : ranked) {
+            if (json.length() > 1) json.append(',');
+            int rank = className == null ? analytics.getRank(s) : analytics.getClassRank(s);
+            json.append("{\"rank\":").append(rank).append(",\"student\":").append(studentJson(s, false)).append('}');
+        }
+        send(ex, 200, "application/json", json.append(']').toString());
+    }
+
+    private String summaryJson() {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"students\":").append(analytics.getStudentCount());
+        json.append(",\"classAverage\":").append(number(analytics.getClassAverage()));
+        json.append(",\"highestAverage\":").append(number(analytics.getHighestAverage()));
+        json.append(",\"lowestAverage\":").append(number(analytics.getLowestAverage()));
+        json.append(",\"needingAttention\":").append(analytics.getStudentsNeedingAttention().size());
+        json.append(",\"percentiles\":").append(percentilesJson(analytics::getPercentile));
+        json.append(",\"classes\":[");
+        List<String> classes = analytics.getClassNames();
+        for (int i = 0; i < classes.size(); i++) {
+            String className = classes.get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"class\":").append(string(className))
+                .append(",\"studentsWithMarks\":").append(analytics.getClassStudentsWithMarks(className))
+                .append(",\"percentiles\":").append(percentilesJson(q -> analytics.getClassPercentile(className, q)))
+                .append('}');
+        }
+        json.append(']');
+        json.append(",\"grades\":{");
+        for (int i = 0; i < AnalyticsEngine.GRADE_ORDER.length; i++) {
+            String grade = AnalyticsEngine.GRADE_ORDER[i];
+            if (i > 0) json.append(',');
+            json.append(string(grade)).append(':').append(analytics.getGradeCount(grade));
+        }
+        json.append("},\"subjects\":[");
+        boolean first = true;
+        for (SubjectIndex.SubjectStats stats : analytics.getSubjectIndex().getAllStats()) {
+            if (!first) json.append(',');
+            first = false;
+            json.append("{\"subject\":").append(string(stats.getSubject()))
+                .append(",\"entries\":").append(stats.getCount())
+                .append(",\"students\":").append(stats.getStudentCount())
+                .append(",\"mean\":").append(number(stats.getMean()))
+                .append(",\"median\":").append(number(stats.getMedian()))
+                .append(",\"min\":").append(number(stats.getMin()))
+                .append(",\"max\":").append(number(stats.getMax()))
+                .append(",\"stdDev\":").append(number(stats.getStdDev()))
+                .append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static final double[] PERCENTILES = {0.10, 0.25, 0.50, 0.75, 0.90};
+
+    private static String percentilesJson(java.util.function.DoubleUnaryOperator percentile) {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            if (i > 0) json.append(',');
+            json.append("\"p").append(Math.round(PERCENTILES[i] * 100)).append("\":")
+                .append(number(percentile.applyAsDouble(PERCENTILES[i])));
+        }
+        return json.append('}').toString();
+    }
+
+    // --- /api/export ---
+
+    // Streams the whole export as a chunked response - nothing is built up in memory first
+    private void handleExport(HttpExchange ex) throws IOException {
+        boolean streaming = false;  // the 200 headers are out, an error status can't follow
+        try {
+            if (!requireMethod(ex, "GET")) return;
+            String[] path = pathAfter(ex, "/api/export");
+            DataExporter.Content content = null;
+            for (DataExporter.Content c : DataExporter.Content.values()) {
+                if (path.length == 1 && path[0].equalsIgnoreCase(c.name())) content = c;
+            }
+            if (content == null) {
+                sendError(ex, 404, "Not found - use /api/export/marks, /students or /subjects");
+                return;
+            }
+            String format = queryParams(ex.getRequestURI().getRawQuery()).getOrDefault("format", "csv");
+            if (!format.equals("csv") && !format.equals("json")) {
+                sendError(ex, 400, "format must be csv or json");
+                return;
+            }
+            boolean json = format.equals("json");
+            ex.getResponseHeaders().set("Content-Type", (json ? "application/json" : "text/csv") + "; charset=utf-8");
+            if (ex.getRequestMethod().equals("HEAD")) {
+                ex.sendResponseHeaders(200, -1);
+                ex.close();
+                return;
+            }
+            ex.sendResponseHeaders(200, 0);
+            streaming = true;
+            try (OutputStream out = ex.getResponseBody()) {
+                DataExporter.export(manager.snapshot(), analytics, content,
+                    json ? DataExporter.Format.JSON : DataExporter.Format.CSV,
+                    Channels.newChannel(out), null, () -> false);
+            }
+            ex.close();
+        } catch (RuntimeException e) {
+            System.err.println("Error handling " + ex.getRequestURI() + ": " + e.getMessage());
+            if (streaming) ex.close();  // all we can do is end the response early
+            else sendError(ex, 500, "Internal error");
+        }
+    }
+
+    // --- helpers ---
+
+    private static String studentJson(Student s, boolean withMarks) {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"roll\":").append(string(s.getRollNumber()));
+        json.append(",\"name\":").append(string(s.getName()));
+        json.append(",\"class\":").append(string(s.getClassName()));
+        json.append(",\"average\":").append(number(s.getAverageScore()));
+        json.append(",\"grade\":").append(string(s.getGrade()));
+        int count = s.getMarkCount();  // marks are only ever appended, so these indexes stay valid
+        json.append(",\"markCount\":").append(count);
+        if (withMarks) {
+            json.append(",\"marks\":[");
+            for (int i = 0; i < count; i++) {
+                if (i > 0) json.append(',');
+                json.append("{\"subject\":").append(string(s.getSubject(i)))
+                    .append(",\"obtained\":").append(number(s.getMarksObtained(i)))
+                    .append(",\"max\":").append(number(s.getMaxMarks(i)))
+                    .append(",\"percentage\":").append(number(s.getPercentage(i)));
+                String term = s.getTerm(i);
+                LocalDate date = s.getDate(i);
+                if (term != null) json.append(",\"term\":").append(string(term));
+                if (date != null) json.append(",\"date\":").append(string(date.toString()));
+                json.append('}');
+            }
+            json.append(']');
+        }
+        return json.append('}').toString();
+    }
+
+    private static String number(double d) {
+        return Double.isFinite(d) ? Double.toString(d) : "null";
+    }
+
+    static String string(String s) {
+        StringBuilder out = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+                    else out.append(c);
+            }
+        }
+        return out.append('"').toString();
+    }
+
+    // path segments after the context, decoded ("/api/students/A%2F1/report" -> ["A/1", "report"])
+    private static String[] pathAfter(HttpExchange ex, String context) {
+        String rest = ex.getRequestURI().getRawPath().substring(context.length());
+        List<String> parts = new ArrayList<>();
+        for (String part : rest.split("/")) {
+            if (!part.isEmpty()) parts.add(decode(part.replace("+", "%2B")));
+        }
+        return parts.toArray(new String[0]);
+    }
+
+    private static Map<String, String> queryParams(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null || raw.isEmpty()) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) params.put(decode(pair), "");
+            else params.put(decode(pair.substring(0, eq)), decode(pair.substring(eq + 1)));
+        }
+        return params;
+    }
+
+    private static String decode(String s) {
+        try {
+            return URLDecoder.decode(s, "UTF-8");
+        } catch (UnsupportedEncodingException | IllegalArgumentException e) {
+            return s;
+        }
+    }
+
+    private boolean requireMethod(HttpExchange ex, String method) throws IOException {
+        String actual = ex.getRequestMethod();
+        if (actual.equals(method) || (method.equals("GET") && actual.equals("HEAD"))) return true;
+        ex.getResponseHeaders().set("Allow", method);
+        sendError(ex, 405, "Use " + method);
+        return false;
+    }
+
+    private boolean authorized(HttpExchange ex) throws IOException {
+        if (token == null) {
+            sendError(ex, 403, "Adding marks needs " + TOKEN_ENV + " set on the server");
+            return false;
+        }
+        if (("Bearer " + token).equals(ex.getRequestHeaders().getFirst("Authorization"))) {
+            return true;
+        }
+        sendError(ex, 401, "Missing or wrong token");
+        return false;
+    }
+
+    private static void sendError(HttpExchange ex, int status, String message) throws IOException {
+        send(ex, status, "application/json", "{\"error\":" + string(message) + "}");
+    }
+
+    private static void send(HttpExchange ex, int status, String type, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", type + "; charset=utf-8");
+        boolean head = ex.getRequestMethod().equals("HEAD");
+        ex.sendResponseHeaders(status, head ? -1 : bytes.length);
+        if (!head) {
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+        ex.close();
+    }
+}
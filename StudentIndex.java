@@ -0,0 +1,125 @@
+import java.util.*;
+
+// Secondary indexes over the roster, kept in sync from StudentManager events:
+// class name -> students, grade -> students, and sorted keys for prefix search on
+// roll numbers and on every word of the name ("ra" finds "Rahul Singh" and "Asha Rao").
+// Lookups only touch matching entries, never the whole roster.
+// Synchronized on itself - updates come from whichever thread changed the student.
+class StudentIndex implements StudentListener {
+    private static final char SEP = '\u0000';  // sorts before any real character
+
+    private final Map<String, Set<Student>> byClass = new HashMap<>();
+    private final Map<String, Set<Student>> byGrade = new HashMap<>();
+    private final Map<Student, String> indexedGrade = new IdentityHashMap<>();
+    // "word\0roll" -> student, one key per word of the name
+    private final TreeMap<String, Student> nameWords = new TreeMap<>();
+    // "roll\0Roll" -> student: lowercased for the search, plus the real roll number since
+    // those are case-sensitive ("a1" and "A1" are two students)
+    private final TreeMap<String, Student> rolls = new TreeMap<>();
+
+    StudentIndex(Collection<Student> students) {
+        for (Student s : students) add(s);
+    }
+
+    @Override
+    public synchronized void studentAdded(Student student) {
+        add(student);
+    }
+
+    @Override
+    public synchronized void studentRemoved(Student student) {
+        remove(byClass, student.getClassName(), student);
+        String grade = indexedGrade.remove(student);
+        if (grade != null) remove(byGrade, grade, student);
+        for (String key : nameKeys(student)) nameWords.remove(key);
+        rolls.remove(rollKey(student));
+    }
+
+    @Override
+    public synchronized void marksAdded(Student student, int markIndex) {
+        String newGrade = student.getGrade();
+        String oldGrade = indexedGrade.put(student, newGrade);
+        if (!newGrade.equals(oldGrade)) {
+            if (oldGrade != null) remove(byGrade, oldGrade, student);
+            byGrade.computeIfAbsent(newGrade, g -> new HashSet<>()).add(student);
+        }
+    }
+
+    @Override
+    public void studentsReloaded() {
+        // the manager builds a fresh index instead
+    }
+
+    private void add(Student student) {
+        byClass.computeIfAbsent(student.getClassName(), c -> new HashSet<>()).add(student);
+        String grade = student.getGrade();
+        indexedGrade.put(student, grade);
+        byGrade.computeIfAbsent(grade, g -> new HashSet<>()).add(student);
+        for (String key : nameKeys(student)) nameWords.put(key, student);
+        rolls.put(rollKey(student), student);
+    }
+
+    private static void remove(Map<String, Set<Student>> index, String key, Student student) {
+        Set<Student> set = index.get(key);
+        if (set == null) return;
+        set.remove(student);
+        if (set.isEmpty()) index.remove(key);
+    }
+
+    private static List<String> nameKeys(Student student) {
+        List<String> keys = new ArrayList<>(3);
+        for (String word : normalize(student.getName()).split("\\s+")) {
+            if (!word.isEmpty()) keys.add(word + SEP + student.getRollNumber());
+        }
+        return keys;
+    }
+
+    private static String rollKey(Student student) {
+        return normalize(student.getRollNumber()) + SEP + student.getRollNumber();
+    }
+
+    static String normalize(String s) {
+        return s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public synchronized List<Student> findByClass(String className) {
+        Set<Student> set = byClass.get(className);
+        return set == null ? new ArrayList<>() : new ArrayList<>(set);
+    }
+
+    public synchronized List<Student> findByGrade(String grade) {
+        Set<Student> set = byGrade.get(grade);
+        return set == null ? new ArrayList<>() : new ArrayList<>(set);
+    }
+
+    public synchronized SortedSet<String> getClassNames() {
+        return new TreeSet<>(byClass.keySet());
+    }
+
+    // Roll numbers starting with the text first, then names with a word starting with it.
+    // Empty text lists students by roll number. Stops after limit matches, so a short prefix on a huge roster is still cheap.
+    public synchronized List<Student> search(String text, int limit) {
+        String prefix = normalize(text);
+        Set<Student> found = new LinkedHashSet<>();
+        if (limit <= 0) return new ArrayList<>(found);
+
+        for (Student s : prefixRange(rolls, prefix).values()) {
+            if (found.size() >= limit) break;
+            found.add(s);
+        }
+        // nothing typed yet - that was just the first few by roll number (what the pickers show)
+        if (prefix.isEmpty()) return new ArrayList<>(found);
+        // only the first word of the query is matched against the index, the rest of a
+        // multi-word query ("asha r") is checked against the full name
+        String[] words = prefix.split("\\s+");
+        for (Student s : prefixRange(nameWords, words[0]).values()) {
+            if (found.size() >= limit) break;
+            if (words.length == 1 || normalize(s.getName()).contains(prefix)) found.add(s);
+        }
+        return new ArrayList<>(found);
+    }
+
+    private static SortedMap<String, Student> prefixRange(TreeMap<String, Student> map, String prefix) {
+        return map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+}
@@ -0,0 +1,15 @@
+// Gets told about every change StudentManager makes, so things like the analytics
+// engine can keep their numbers up to date instead of recomputing from scratch.
+// Not called while the saved data is being loaded - listeners should read the
+// current students when they're registered (inside StudentManager.withWritesPaused,
+// so no change slips in between).
+// Called on whichever thread made the change, with that roll number locked: keep it
+// short, don't query the manager from here, and Swing code has to use the EDT.
+interface StudentListener {
+    void studentAdded(Student student);
+    void studentRemoved(Student student);
+    // markIndex is the index of the new mark (student.getSubject(markIndex) etc.)
+    void marksAdded(Student student, int markIndex);
+    // lots changed at once (bulk import) - re-read everything from the manager
+    void studentsReloaded();
+}
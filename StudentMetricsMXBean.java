@@ -0,0 +1,45 @@
+import java.beans.ConstructorProperties;
+
+// What PerformanceMetrics publishes over JMX (StudentAnalytics:type=Metrics) - shows up
+// in JConsole / VisualVM; each latency is a composite of count, mean, percentiles and max.
+public interface StudentMetricsMXBean {
+    LatencyStats getJournalSync();
+    LatencyStats getSnapshotWrite();
+    LatencyStats getDataLoad();
+    LatencyStats getAnalyticsRender();
+    LatencyStats getReportRender();
+    LatencyStats getTableReload();
+
+    long getJournalBytesWritten();
+    long getSnapshotBytesWritten();
+    long getChangesSaved();
+    long getSaveFailures();
+    long getReportCacheHits();
+    long getReportCacheMisses();
+    int getStudentCount();
+
+    void reset();
+
+    final class LatencyStats {
+        private final long count;
+        private final double meanMillis, p50Millis, p95Millis, p99Millis, maxMillis;
+
+        @ConstructorProperties({"count", "meanMillis", "p50Millis", "p95Millis", "p99Millis", "maxMillis"})
+        public LatencyStats(long count, double meanMillis, double p50Millis, double p95Millis,
+                            double p99Millis, double maxMillis) {
+            this.count = count;
+            this.meanMillis = meanMillis;
+            this.p50Millis = p50Millis;
+            this.p95Millis = p95Millis;
+            this.p99Millis = p99Millis;
+            this.maxMillis = maxMillis;
+        }
+
+        public long getCount() { return count; }
+        public double getMeanMillis() { return meanMillis; }
+        public double getP50Millis() { return p50Millis; }
+        public double getP95Millis() { return p95Millis; }
+        public double getP99Millis() { return p99Millis; }
+        public double getMaxMillis() { return maxMillis; }
+    }
+}
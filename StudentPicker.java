@@ -0,0 +1,129 @@
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.JTextComponent;
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+// Type-ahead student picker. Replaces the combo boxes that got every student added
+// one by one (and had the selection parsed back out of "roll - name").
+// The list only ever holds the first few matches from StudentManager's index for
+// what's been typed, and items are the Student objects themselves.
+class StudentPicker extends JComboBox<Student> {
+    private static final int MAX_MATCHES = 50;
+
+    private final StudentManager manager;
+    private final MatchModel model;
+    private final JTextComponent editor;
+    private final javax.swing.Timer searchDelay;
+    private boolean updating;  // set while we change the list ourselves
+
+    // Only the current matches - nothing else is materialized
+    private static final class MatchModel extends AbstractListModel<Student> implements ComboBoxModel<Student> {
+        private List<Student> matches = new ArrayList<>();
+        private Object selected;
+
+        void setMatches(List<Student> matches) {
+            int old = this.matches.size();
+            this.matches = matches;
+            if (old > 0) fireIntervalRemoved(this, 0, old - 1);
+            if (!matches.isEmpty()) fireIntervalAdded(this, 0, matches.size() - 1);
+        }
+
+        @Override
+        public int getSize() { return matches.size(); }
+
+        @Override
+        public Student getElementAt(int index) { return matches.get(index); }
+
+        @Override
+        public void setSelectedItem(Object item) {
+            if (Objects.equals(selected, item)) return;
+            selected = item;
+            fireContentsChanged(this, -1, -1);
+        }
+
+        @Override
+        public Object getSelectedItem() { return selected; }
+    }
+
+    StudentPicker(StudentManager manager) {
+        this(manager, new MatchModel());
+    }
+
+    private StudentPicker(StudentManager manager, MatchModel model) {
+        super(model);
+        this.manager = manager;
+        this.model = model;
+        setEditable(true);
+        setMaximumRowCount(12);
+        setPrototypeDisplayValue(new Student("0000000000", "Xxxxxxxxxxxxxxxxxxxxxx", ""));
+        setToolTipText("Type a roll number, or a name and pick the student from the list");
+
+        editor = (JTextComponent) getEditor().getEditorComponent();
+        searchDelay = new javax.swing.Timer(150, e -> search());
+        searchDelay.setRepeats(false);
+        editor.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { textChanged(); }
+            public void removeUpdate(DocumentEvent e) { textChanged(); }
+            public void changedUpdate(DocumentEvent e) { textChanged(); }
+        });
+        refresh();
+    }
+
+    private void textChanged() {
+        if (!updating) searchDelay.restart();
+    }
+
+    // re-run the search for whatever is typed (also picks up students added since)
+    public void refresh() {
+        searchDelay.stop();
+        search();
+    }
+
+    private void search() {
+        String text = editor.getText();
+        Object selected = model.getSelectedItem();
+        if (selected instanceof Student && text.equals(selected.toString())) {
+            return;  // the text is just the item the user picked
+        }
+        List<Student> matches = manager.searchStudents(text, MAX_MATCHES);
+        updating = true;
+        try {
+            model.setMatches(matches);
+            // keep what the user typed rather than jumping to the first match
+            if (!editor.getText().equals(text)) editor.setText(text);
+        } finally {
+            updating = false;
+        }
+        if (editor.hasFocus() && !matches.isEmpty() && isShowing()) {
+            showPopup();
+        }
+    }
+
+    // The student picked from the list, or the one whose roll number was typed exactly;
+    // null for anything else (a partial name could mean several students - marks must
+    // never go to whichever happens to sort first) or if the student has since been removed.
+    public Student getSelectedStudent() {
+        Object selected = getSelectedItem();
+        if (selected instanceof Student) {
+            Student s = (Student) selected;
+            if (editor.getText().equals(s.toString())) {
+                return manager.getStudent(s.getRollNumber()) == s ? s : null;
+            }
+        }
+        String text = editor.getText().trim();
+        return text.isEmpty() ? null : manager.getStudent(text);
+    }
+
+    public void applyTheme(Color background, Color foreground, Font font) {
+        setBackground(background);
+        setForeground(foreground);
+        setFont(font);
+        editor.setBackground(background);
+        editor.setForeground(foreground);
+        editor.setCaretColor(foreground);
+        editor.setFont(font);
+    }
+}
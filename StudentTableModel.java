@@ -0,0 +1,158 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.*;
+
+// Students tab table - reads straight from the Student objects instead of copying
+// every value into a DefaultTableModel, and updates itself from StudentManager events
+// (one row inserted/updated/deleted) instead of being rebuilt on every change.
+// Values are returned raw; the table's renderers do the formatting for visible cells only.
+// With a filter set, the rows come from StudentManager's indexes instead of the full roster.
+// Changes made on other threads are passed over to the EDT by EdtUpdates.
+class StudentTableModel extends AbstractTableModel implements StudentListener {
+    static final int ROLL = 0, NAME = 1, CLASS = 2, AVERAGE = 3, GRADE = 4;
+    private static final String[] COLUMNS = {"Roll No", "Name", "Class", "Avg Score", "Grade"};
+
+    private final StudentManager manager;
+    private final List<Student> rows = new ArrayList<>();
+    private final Map<String, Integer> rowByRoll = new HashMap<>();
+    private String filter = "";  // empty = everyone
+    private final EdtUpdates updates;
+
+    StudentTableModel(StudentManager manager) {
+        this.manager = manager;
+        this.updates = new EdtUpdates(manager, this::loadRows, this::fireTableDataChanged);
+        manager.withWritesPaused(() -> {
+            loadRows();
+            manager.addStudentListener(this);
+        });
+    }
+
+    // full rebuild - only for the Refresh button, normal changes arrive as events
+    public void reload() {
+        updates.reload();
+    }
+
+    // "class:10-A" and "grade:B" use those indexes, anything else is a roll/name prefix search
+    public void setFilter(String text) {
+        filter = text.trim();
+        reload();
+    }
+
+    public boolean isFiltered() {
+        return !filter.isEmpty();
+    }
+
+    private void loadRows() {
+        long start = System.nanoTime();
+        rows.clear();
+        rowByRoll.clear();
+        for (Student s : matchingStudents()) {
+            rowByRoll.put(s.getRollNumber(), rows.size());
+            rows.add(s);
+        }
+        PerformanceMetrics.TABLE_RELOAD.recordSince(start);
+    }
+
+    private List<Student> matchingStudents() {
+        if (filter.isEmpty()) return manager.getAllStudents();
+        String lower = filter.toLowerCase(Locale.ROOT);
+        if (lower.startsWith("class:")) return manager.findByClass(filter.substring(6).trim());
+        if (lower.startsWith("grade:")) return manager.findByGrade(filter.substring(6).trim().toUpperCase(Locale.ROOT));
+        return manager.searchStudents(filter, Integer.MAX_VALUE);
+    }
+
+    public Student getStudentAt(int row) {
+        return rows.get(row);
+    }
+
+    @Override
+    public void studentAdded(Student student) {
+        updates.apply(() -> addRow(student));
+    }
+
+    @Override
+    public void studentRemoved(Student student) {
+        updates.apply(() -> removeRow(student));
+    }
+
+    @Override
+    public void marksAdded(Student student, int markIndex) {
+        updates.apply(() -> updateRow(student));
+    }
+
+    @Override
+    public void studentsReloaded() {
+        updates.queueReload();
+    }
+
+    // The row changes themselves, on the EDT. While filtered they just queue a reload:
+    // the filtered set is small, and asking the index again from inside a change event
+    // isn't allowed.
+
+    private void addRow(Student student) {
+        if (isFiltered()) {
+            updates.queueReload();
+            return;
+        }
+        int row = rows.size();
+        rows.add(student);
+        rowByRoll.put(student.getRollNumber(), row);
+        fireTableRowsInserted(row, row);
+    }
+
+    private void removeRow(Student student) {
+        if (isFiltered()) {
+            updates.queueReload();
+            return;
+        }
+        Integer row = rowByRoll.remove(student.getRollNumber());
+        if (row == null) return;
+        rows.remove((int) row);
+        // everything after it moved up one
+        for (int i = row; i < rows.size(); i++) {
+            rowByRoll.put(rows.get(i).getRollNumber(), i);
+        }
+        fireTableRowsDeleted(row, row);
+    }
+
+    private void updateRow(Student student) {
+        // filtered by grade, the student may have moved in or out of the grade
+        if (filter.regionMatches(true, 0, "grade:", 0, 6)) {
+            updates.queueReload();
+            return;
+        }
+        Integer row = rowByRoll.get(student.getRollNumber());
+        if (row != null) fireTableRowsUpdated(row, row);  // average and grade changed
+    }
+
+    @Override
+    public int getRowCount() { return rows.size(); }
+
+    @Override
+    public int getColumnCount() { return COLUMNS.length; }
+
+    @Override
+    public String getColumnName(int column) { return COLUMNS[column]; }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == AVERAGE ? Double.class : String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;  // don't let users edit table directly
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Student s = rows.get(row);
+        switch (column) {
+            case ROLL: return s.getRollNumber();
+            case NAME: return s.getName();
+            case CLASS: return s.getClassName();
+            case AVERAGE: return s.getAverageScore();
+            case GRADE: return s.getGrade();
+            default: return null;
+        }
+    }
+}
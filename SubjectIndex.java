@@ -0,0 +1,160 @@
+import java.util.*;
+
+// Per-subject statistics kept up to date from StudentManager events, so "how did
+// everyone do in Physics" doesn't mean scanning every mark of every student.
+// Works on mark percentages. Mean/variance use Welford's running update (which can
+// also be undone when a student is removed); min/max are exact and only get
+// recomputed from the posting list if a removed mark was the current min or max.
+// Median and percentiles come from a fixed-bucket histogram of the percentages.
+// Thread-safe: the index is synchronized on itself and each SubjectStats on itself.
+class SubjectIndex implements StudentListener {
+
+    static final class SubjectStats {
+        final int subjectId;
+        private long count;
+        private double mean;
+        private double m2;  // sum of squared differences from the mean
+        private double min = Double.NaN, max = Double.NaN;
+        private boolean extremesStale;
+        private final PercentHistogram distribution = new PercentHistogram();
+        // students with at least one mark in this subject -> how many marks they have in it
+        private final Map<Student, Integer> postings = new LinkedHashMap<>();
+
+        SubjectStats(int subjectId) {
+            this.subjectId = subjectId;
+        }
+
+        public String getSubject() { return SubjectTable.nameOf(subjectId); }
+        public synchronized long getCount() { return count; }
+        public synchronized int getStudentCount() { return postings.size(); }
+        public synchronized double getMean() { return count == 0 ? 0.0 : mean; }
+        public synchronized double getVariance() { return count == 0 ? 0.0 : Math.max(0.0, m2 / count); }
+        public double getStdDev() { return Math.sqrt(getVariance()); }
+        public synchronized Set<Student> getStudents() { return new LinkedHashSet<>(postings.keySet()); }
+        public synchronized double getPercentile(double q) { return count == 0 ? 0.0 : distribution.quantile(q); }
+        public double getMedian() { return getPercentile(0.5); }
+
+        public synchronized double getMin() {
+            refreshExtremes();
+            return count == 0 ? 0.0 : min;
+        }
+
+        public synchronized double getMax() {
+            refreshExtremes();
+            return count == 0 ? 0.0 : max;
+        }
+
+        private synchronized void add(Student student, double pct) {
+            count++;
+            double delta = pct - mean;
+            mean += delta / count;
+            m2 += delta * (pct - mean);
+            if (count == 1 || pct < min) min = pct;
+            if (count == 1 || pct > max) max = pct;
+            distribution.add(pct);
+            postings.merge(student, 1, Integer::sum);
+        }
+
+        private synchronized void remove(Student student, double pct) {
+            if (count <= 1) {
+                count = 0;
+                mean = m2 = 0;
+                min = max = Double.NaN;
+            } else {
+                double oldMean = (mean * count - pct) / (count - 1);
+                m2 -= (pct - mean) * (pct - oldMean);
+                mean = oldMean;
+                count--;
+                if (pct <= min || pct >= max) extremesStale = true;
+            }
+            distribution.remove(pct);
+            postings.computeIfPresent(student, (s, n) -> n > 1 ? n - 1 : null);
+        }
+
+        private void refreshExtremes() {
+            if (!extremesStale) return;
+            extremesStale = false;
+            min = Double.POSITIVE_INFINITY;
+            max = Double.NEGATIVE_INFINITY;
+            for (Student s : postings.keySet()) {
+                for (int i = 0; i < s.getMarkCount(); i++) {
+                    if (s.getSubjectId(i) != subjectId) continue;
+                    double pct = s.getPercentage(i);
+                    if (pct < min) min = pct;
+                    if (pct > max) max = pct;
+                }
+            }
+        }
+    }
+
+    private final StudentManager manager;
+    private SubjectStats[] bySubjectId = new SubjectStats[16];
+
+    SubjectIndex(StudentManager manager) {
+        this.manager = manager;
+        manager.withWritesPaused(() -> {
+            rebuild();
+            manager.addStudentListener(this);
+        });
+    }
+
+    private synchronized void rebuild() {
+        bySubjectId = new SubjectStats[Math.max(16, SubjectTable.size())];
+        for (Student s : manager.getAllStudents()) {
+            for (int i = 0; i < s.getMarkCount(); i++) {
+                stats(s.getSubjectId(i)).add(s, s.getPercentage(i));
+            }
+        }
+    }
+
+    private SubjectStats stats(int subjectId) {
+        if (subjectId >= bySubjectId.length) {
+            bySubjectId = Arrays.copyOf(bySubjectId, Math.max(subjectId + 1, bySubjectId.length * 2));
+        }
+        SubjectStats stats = bySubjectId[subjectId];
+        if (stats == null) {
+            stats = new SubjectStats(subjectId);
+            bySubjectId[subjectId] = stats;
+        }
+        return stats;
+    }
+
+    @Override
+    public void studentAdded(Student student) {
+        // new students have no marks yet
+    }
+
+    @Override
+    public synchronized void studentRemoved(Student student) {
+        for (int i = 0; i < student.getMarkCount(); i++) {
+            stats(student.getSubjectId(i)).remove(student, student.getPercentage(i));
+        }
+    }
+
+    @Override
+    public synchronized void marksAdded(Student student, int markIndex) {
+        stats(student.getSubjectId(markIndex)).add(student, student.getPercentage(markIndex));
+    }
+
+    @Override
+    public synchronized void studentsReloaded() {
+        rebuild();
+    }
+
+    // null if nobody has a mark in that subject
+    public synchronized SubjectStats getStats(String subject) {
+        int id = SubjectTable.find(subject);
+        SubjectStats stats = id >= 0 && id < bySubjectId.length ? bySubjectId[id] : null;
+        return stats == null || stats.getCount() == 0 ? null : stats;
+    }
+
+    // subjects that currently have marks, sorted by name
+    public synchronized List<SubjectStats> getAllStats() {
+        List<SubjectStats> result = new ArrayList<>();
+        for (SubjectStats stats : bySubjectId) {
+            if (stats != null && stats.getCount() > 0) result.add(stats);
+        }
+        result.sort(Comparator.comparing(SubjectStats::getSubject, String.CASE_INSENSITIVE_ORDER));
+        return result;
+    }
+}
@@ -0,0 +1,44 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Interned subject names. Students store small int ids instead of a String per mark,
+// so "Physics" exists once no matter how many marks reference it.
+// Ids are handed out in order and never reused.
+final class SubjectTable {
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[64];
+    private static int count;  // guarded by the class lock
+
+    private SubjectTable() { }
+
+    static int idOf(String subject) {
+        Integer id = ids.get(subject);
+        if (id != null) return id;
+        synchronized (SubjectTable.class) {
+            id = ids.get(subject);
+            if (id != null) return id;
+            String[] table = names;
+            if (count == table.length) {
+                table = Arrays.copyOf(table, count * 2);
+            }
+            table[count] = subject;
+            names = table;  // publish before the id becomes visible
+            ids.put(subject, count);
+            return count++;
+        }
+    }
+
+    // -1 if the subject has never been seen (doesn't add it)
+    static int find(String subject) {
+        Integer id = ids.get(subject);
+        return id == null ? -1 : id;
+    }
+
+    static String nameOf(int id) {
+        return names[id];
+    }
+
+    static int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,40 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Interned assessment term names ("Term 1", "Midterm", ...), same idea as SubjectTable:
+// students store a small int per mark instead of a String.
+// Ids are handed out in order and never reused.
+final class TermTable {
+    private static final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[16];
+    private static int count;  // guarded by the class lock
+
+    private TermTable() { }
+
+    static int idOf(String term) {
+        Integer id = ids.get(term);
+        if (id != null) return id;
+        synchronized (TermTable.class) {
+            id = ids.get(term);
+            if (id != null) return id;
+            String[] table = names;
+            if (count == table.length) {
+                table = Arrays.copyOf(table, count * 2);
+            }
+            table[count] = term;
+            names = table;  // publish before the id becomes visible
+            ids.put(term, count);
+            return count++;
+        }
+    }
+
+    // -1 if the term has never been seen (doesn't add it)
+    static int find(String term) {
+        Integer id = ids.get(term);
+        return id == null ? -1 : id;
+    }
+
+    static String nameOf(int id) {
+        return names[id];
+    }
+}
@@ -0,0 +1,199 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+// Many threads writing to one StudentManager at once, with readers and snapshots
+// (compactions) going on at the same time. Afterwards it checks nothing was lost or
+// doubled - in memory, in the analytics indexes, and after reloading from disk.
+//
+//   gradle :benchmarks:stress                      (16 writers)
+//   gradle :benchmarks:stress --args="32 20000"    (writers, operations per writer)
+//
+// Exits with 1 if any check fails.
+public class StudentManagerStressTest {
+    private static final String[] SUBJECTS = {"Physics", "Chemistry", "Mathematics", "Biology", "English"};
+    private static final int SHARED_ROLLS = 2_000;  // every writer tries to add all of these
+
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        int writers = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int opsPerWriter = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        Path dir = Files.createTempDirectory("student-stress");
+        try {
+            run(dir, writers, opsPerWriter);
+        } finally {
+            deleteAll(dir);
+        }
+        if (failures > 0) {
+            System.err.println(failures + " check(s) failed");
+            System.exit(1);
+        }
+        System.out.println("All checks passed");
+        System.exit(0);
+    }
+
+    private static void run(Path dir, int writers, int opsPerWriter) throws Exception {
+        StudentManager manager = new StudentManager(dir);
+        AnalyticsEngine analytics = new AnalyticsEngine(manager);
+
+        // what the writers think they did - compared with the manager at the end
+        AtomicInteger sharedAdds = new AtomicInteger();
+        Map<String, AtomicInteger> marksAdded = new ConcurrentHashMap<>();
+        Set<String> removed = ConcurrentHashMap.newKeySet();
+
+        ExecutorService pool = Executors.newFixedThreadPool(writers + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writes = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            writes.add(pool.submit(() -> {
+                start.await();
+                Random random = new Random(writer);
+                for (int i = 0; i < SHARED_ROLLS; i++) {
+                    String roll = "S" + ((i + writer * 7) % SHARED_ROLLS);  // different order per writer
+                    if (manager.addStudent(new Student(roll, "Shared " + roll, "10-" + (char) ('A' + i % 4)))) {
+                        sharedAdds.incrementAndGet();
+                    }
+                }
+                for (int i = 0; i < opsPerWriter; i++) {
+                    int op = random.nextInt(10);
+                    if (op < 7) {
+                        // marks for a shared student - many writers hit the same ones
+                        String roll = "S" + random.nextInt(SHARED_ROLLS);
+                        if (manager.addMarks(roll, SUBJECTS[random.nextInt(SUBJECTS.length)], random.nextInt(101), 100)) {
+                            marksAdded.computeIfAbsent(roll, r -> new AtomicInteger()).incrementAndGet();
+                        }
+                    } else if (op < 9) {
+                        // a student of our own, with one mark
+                        String roll = "W" + writer + "-" + i;
+                        manager.addStudent(new Student(roll, "Writer " + writer, "9-" + (char) ('A' + writer % 4)));
+                        manager.addMarks(roll, SUBJECTS[i % SUBJECTS.length], random.nextInt(101), 100);
+                        marksAdded.computeIfAbsent(roll, r -> new AtomicInteger()).incrementAndGet();
+                    } else if (i > 0) {
+                        // remove one of our own from earlier
+                        String roll = "W" + writer + "-" + random.nextInt(i);
+                        if (manager.getStudent(roll) != null) {
+                            manager.removeStudent(roll);
+                            removed.add(roll);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // readers and explicit snapshots while the writers run
+        AtomicInteger reads = new AtomicInteger();
+        AtomicInteger tornSnapshots = new AtomicInteger();
+        Future<?> reader = pool.submit(() -> {
+            start.await();
+            while (!allDone(writes)) {
+                manager.getAllStudents();
+                RosterSnapshot snapshot = manager.snapshot();
+                int seen = 0;
+                for (Student s : snapshot) {
+                    if (snapshot.get(s.getRollNumber()) != s) tornSnapshots.incrementAndGet();
+                    seen++;
+                }
+                if (seen != snapshot.size()) tornSnapshots.incrementAndGet();
+                manager.searchStudents("S1", 20);
+                manager.findByClass("10-A");
+                analytics.getTopPerformers(5);
+                analytics.getSubjectIndex().getAllStats();
+                reads.incrementAndGet();
+            }
+            return null;
+        });
+        Future<?> saver = pool.submit(() -> {
+            start.await();
+            while (!allDone(writes)) {
+                manager.saveData();
+                Thread.sleep(50);
+            }
+            return null;
+        });
+
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Future<?> f : writes) f.get();
+        reader.get();
+        saver.get();
+        long millis = (System.nanoTime() - t0) / 1_000_000;
+        pool.shutdown();
+        System.out.printf("%d writers x %d ops in %d ms (%d read passes alongside)%n",
+            writers, opsPerWriter, millis, reads.get());
+
+        // --- checks ---
+        check(sharedAdds.get() == SHARED_ROLLS, "each shared roll number added exactly once ("
+            + sharedAdds.get() + " successful adds for " + SHARED_ROLLS + ")");
+
+        List<Student> all = manager.getAllStudents();
+        check(all.size() == manager.getStudentCount(), "student count matches the roster");
+        check(tornSnapshots.get() == 0, "snapshots read during the run were self-consistent ("
+            + tornSnapshots.get() + " problems)");
+        RosterSnapshot finalSnapshot = manager.snapshot();
+        int snapshotDiffs = finalSnapshot.size() == all.size() ? 0 : 1;
+        for (Student s : all) {
+            Student frozen = finalSnapshot.get(s.getRollNumber());
+            if (frozen == null || frozen.getVersion() != s.getVersion()) snapshotDiffs++;
+        }
+        check(snapshotDiffs == 0, "latest snapshot matches the live roster (" + snapshotDiffs + " differences)");
+        Map<String, Integer> expectedMarks = new HashMap<>();
+        for (Map.Entry<String, AtomicInteger> e : marksAdded.entrySet()) {
+            if (!removed.contains(e.getKey())) expectedMarks.put(e.getKey(), e.getValue().get());
+        }
+        checkMarks(all, expectedMarks, removed, "in memory");
+
+        double sum = 0;
+        for (Student s : all) sum += s.getAverageScore();
+        double average = all.isEmpty() ? 0 : sum / all.size();
+        check(analytics.getStudentCount() == all.size(), "analytics engine has every student");
+        check(Math.abs(analytics.getClassAverage() - average) < 1e-6, "analytics class average matches");
+        long indexedMarks = 0, actualMarks = 0;
+        for (SubjectIndex.SubjectStats stats : analytics.getSubjectIndex().getAllStats()) indexedMarks += stats.getCount();
+        for (Student s : all) actualMarks += s.getMarkCount();
+        check(indexedMarks == actualMarks, "subject index counted every mark (" + indexedMarks + " / " + actualMarks + ")");
+
+        manager.close();
+        StudentManager reloaded = new StudentManager(dir);
+        checkMarks(reloaded.getAllStudents(), expectedMarks, removed, "after reload");
+        check(reloaded.getStudentCount() == all.size(), "same number of students after reload");
+        reloaded.close();
+    }
+
+    private static void checkMarks(List<Student> students, Map<String, Integer> expected,
+                                   Set<String> removed, String where) {
+        int wrong = 0, resurrected = 0;
+        for (Student s : students) {
+            if (removed.contains(s.getRollNumber())) resurrected++;
+            Integer marks = expected.get(s.getRollNumber());
+            if (s.getMarkCount() != (marks == null ? 0 : marks)) wrong++;
+        }
+        check(wrong == 0, "mark counts " + where + " (" + wrong + " students off)");
+        check(resurrected == 0, "removed students stay removed " + where + " (" + resurrected + " back)");
+    }
+
+    private static boolean allDone(List<Future<?>> futures) {
+        for (Future<?> f : futures) {
+            if (!f.isDone()) return false;
+        }
+        return true;
+    }
+
+    private static void check(boolean ok, String what) {
+        System.out.println((ok ? "  ok    " : "  FAIL  ") + what);
+        if (!ok) failures++;
+    }
+
+    private static void deleteAll(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
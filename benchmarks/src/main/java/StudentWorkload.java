@@ -0,0 +1,141 @@
+import bench.Workload;
+
+import java.nio.file.Path;
+import java.util.*;
+
+// App side of the JMH benchmarks (see bench.Workload for why this is split).
+// Sits in the unnamed package like the app, so it can use the package-private classes.
+public class StudentWorkload implements Workload {
+    private static final String[] FIRST_NAMES = {
+        "Aarav", "Asha", "Imran", "Priya", "Rahul", "Sneha", "Vikram", "Meera", "Arjun", "Kavya",
+        "Rohan", "Divya", "Karan", "Ananya", "Nikhil", "Pooja", "Siddharth", "Isha", "Aditya", "Neha"
+    };
+    private static final String[] LAST_NAMES = {
+        "Rao", "Khan", "Nair", "Singh", "Sharma", "Iyer", "Patel", "Gupta", "Menon", "Das",
+        "Reddy", "Joshi", "Kumar", "Bose", "Mehta", "Pillai", "Verma", "Shah", "Chopra", "Sen"
+    };
+    private static final String[] SUBJECTS = {
+        "Physics", "Chemistry", "Mathematics", "Biology", "English",
+        "History", "Geography", "Computer Science", "Economics", "Hindi"
+    };
+
+    private final Path dataDir;
+    private StudentManager manager;
+    private List<Student> students;
+    private List<String> rollPerClass;  // one student from each class
+    private ReportGenerator reports;
+    private StudentTableModel studentTable;
+    private MarksTableModel marksTable;
+
+    public StudentWorkload(Path dataDir) {
+        this.dataDir = dataDir;
+    }
+
+    @Override
+    public void populate(int count, int marksPerStudent, long seed) {
+        manager = new StudentManager(dataDir);
+        Random random = new Random(seed);
+        manager.runBatch(() -> {
+            for (int i = 0; i < count; i++) {
+                String roll = String.format("R%07d", i);
+                String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                    + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                String className = (6 + i % 7) + "-" + (char) ('A' + (i / 7) % 4);
+                manager.addStudent(new Student(roll, name, className));
+                for (int j = 0; j < marksPerStudent; j++) {
+                    manager.addMarks(roll, subject(j), random.nextInt(101), 100);
+                }
+            }
+        });
+        manager.flush();  // don't let the background snapshot write overlap the measurements
+        students = manager.getAllStudents();
+        Map<String, String> byClass = new LinkedHashMap<>();
+        for (Student s : students) byClass.putIfAbsent(s.getClassName(), s.getRollNumber());
+        rollPerClass = new ArrayList<>(byClass.values());
+    }
+
+    // 10 real subject names, then "Physics 2", "Chemistry 2", ... for up to 50 marks
+    private static String subject(int j) {
+        String name = SUBJECTS[j % SUBJECTS.length];
+        return j < SUBJECTS.length ? name : name + " " + (j / SUBJECTS.length + 1);
+    }
+
+    @Override
+    public double sumAverageScores() {
+        double sum = 0;
+        for (Student s : students) sum += s.getAverageScore();
+        return sum;
+    }
+
+    @Override
+    public int sumGrades() {
+        int sum = 0;
+        for (Student s : students) sum += s.getGrade().charAt(0);
+        return sum;
+    }
+
+    @Override
+    public void prepareReports() {
+        reports = new ReportGenerator(new AnalyticsEngine(manager));
+    }
+
+    @Override
+    public String generateAnalytics() {
+        return reports.generateAnalytics();
+    }
+
+    @Override
+    public String generateStudentReport(int index) {
+        return reports.generateStudentReport(students.get(Math.floorMod(index, students.size())));
+    }
+
+    @Override
+    public String renderStudentReport(int index) {
+        return reports.renderStudentReport(students.get(Math.floorMod(index, students.size())));
+    }
+
+    @Override
+    public void prepareTables() {
+        studentTable = new StudentTableModel(manager);
+        marksTable = new MarksTableModel(manager);
+    }
+
+    @Override
+    public int reloadStudentTable() {
+        studentTable.reload();
+        return studentTable.getRowCount();
+    }
+
+    @Override
+    public int reloadMarksTable() {
+        marksTable.reload();
+        return marksTable.getRowCount();
+    }
+
+    @Override
+    public void dirtyAllClasses() {
+        for (String roll : rollPerClass) manager.addMarks(roll, subject(0), 50, 100);
+        manager.flush();
+    }
+
+    @Override
+    public void saveData() {
+        manager.saveData();
+        manager.flush();
+    }
+
+    @Override
+    public int loadData(boolean decodeAll) {
+        StudentManager loaded = new StudentManager(dataDir);
+        try {
+            return decodeAll ? loaded.getAllStudents().size() : loaded.getStudentCount();
+        } finally {
+            loaded.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (manager != null) manager.close();
+    }
+}
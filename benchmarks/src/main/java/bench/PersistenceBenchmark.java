@@ -0,0 +1,50 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// StudentManager.saveData (full snapshot, until it's synced) and loading it back.
+// These hit the disk, so they run as single shots rather than in a tight loop.
+// saveData only rewrites the classes that changed, so every class gets a new mark
+// before each shot - otherwise all but the first would just write the manifest.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class PersistenceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Dirty extends Roster {
+        @Setup(Level.Invocation)
+        public void dirtyAllClasses() {
+            workload.dirtyAllClasses();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Saved extends Roster {
+        @Override
+        protected void prepare() {
+            workload.close();  // the load benchmarks open their own manager
+        }
+    }
+
+    @Benchmark
+    public void saveData(Dirty dirty) {
+        dirty.workload.saveData();
+    }
+
+    // startup cost - maps the snapshot and reads the roll number index
+    @Benchmark
+    public int loadData(Saved saved) {
+        return saved.workload.loadData(false);
+    }
+
+    // startup plus decoding every student, e.g. before the first full table view
+    @Benchmark
+    public int loadAndDecodeAll(Saved saved) {
+        return saved.workload.loadData(true);
+    }
+}
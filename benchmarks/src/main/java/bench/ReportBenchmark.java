@@ -0,0 +1,44 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// ReportGenerator: the analytics dashboard and a single student's report, both rendered
+// from scratch and served from the report cache
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ReportBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Reports extends Roster {
+        int next;
+
+        @Override
+        protected void prepare() {
+            workload.prepareReports();
+        }
+    }
+
+    @Benchmark
+    public String generateAnalytics(Reports reports) {
+        return reports.workload.generateAnalytics();
+    }
+
+    // always renders - walking the roster would otherwise be all cache hits once the
+    // smaller rosters fit in the cache
+    @Benchmark
+    public String renderStudentReport(Reports reports) {
+        return reports.workload.renderStudentReport(reports.next++);
+    }
+
+    // what the Reports tab costs when the student hasn't changed: a cache hit plus
+    // the standing lines, which are always worked out fresh
+    @Benchmark
+    public String generateStudentReportCached(Reports reports) {
+        return reports.workload.generateStudentReport(0);
+    }
+}
@@ -0,0 +1,47 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+// Generated dataset shared by the benchmarks, in its own temp directory.
+// Every benchmark runs over all students x marks combinations unless narrowed
+// with -p, e.g. -p students=1000,10000 -p marks=10
+@State(Scope.Benchmark)
+public class Roster {
+    static final long SEED = 42;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int students;
+
+    @Param({"1", "10", "50"})
+    public int marks;
+
+    protected Workload workload;
+    private Path dataDir;
+
+    @Setup(Level.Trial)
+    public void populate() throws IOException {
+        dataDir = Files.createTempDirectory("student-bench");
+        workload = Workload.create(dataDir);
+        workload.populate(students, marks, SEED);
+        prepare();
+    }
+
+    // extra setup for one benchmark class
+    protected void prepare() {
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        workload.close();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Student.getAverageScore / getGrade, called once for every student on the roster
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class StudentBenchmark {
+
+    @Benchmark
+    public double averageScore(Roster roster) {
+        return roster.workload.sumAverageScores();
+    }
+
+    @Benchmark
+    public int grade(Roster roster) {
+        return roster.workload.sumGrades();
+    }
+}
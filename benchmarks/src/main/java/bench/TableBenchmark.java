@@ -0,0 +1,32 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Full reload of the Students and Add Marks tables (the Refresh button path)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class TableBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Tables extends Roster {
+        @Override
+        protected void prepare() {
+            workload.prepareTables();
+        }
+    }
+
+    @Benchmark
+    public int studentTableReload(Tables tables) {
+        return tables.workload.reloadStudentTable();
+    }
+
+    @Benchmark
+    public int marksTableReload(Tables tables) {
+        return tables.workload.reloadMarksTable();
+    }
+}
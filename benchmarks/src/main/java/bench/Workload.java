@@ -0,0 +1,57 @@
+package bench;
+
+import java.nio.file.Path;
+
+// Everything the benchmarks do to the app, behind an interface.
+// The app is in the unnamed package, which code in a named package can't refer to,
+// and JMH won't generate benchmarks in the unnamed package. So StudentWorkload
+// (unnamed package, next to this one) implements this and gets loaded by name.
+// The call through a final field is monomorphic, so the JIT inlines it.
+public interface Workload {
+
+    // fresh StudentManager in dataDir filled with generated students, saved to disk
+    void populate(int students, int marksPerStudent, long seed);
+
+    double sumAverageScores();
+
+    int sumGrades();
+
+    // analytics engine + report generator over the current data
+    void prepareReports();
+
+    String generateAnalytics();
+
+    // through the report cache
+    String generateStudentReport(int index);
+
+    // the same report, never cached
+    String renderStudentReport(int index);
+
+    // the Students and Add Marks tab table models
+    void prepareTables();
+
+    int reloadStudentTable();
+
+    int reloadMarksTable();
+
+    // adds a mark in every class and waits until it's journaled, so the next saveData
+    // has every partition to write again
+    void dirtyAllClasses();
+
+    // snapshot write (of the classes changed since the last one), waits until it's on disk
+    void saveData();
+
+    // opens the saved data with a new StudentManager and closes it again
+    int loadData(boolean decodeAll);
+
+    void close();
+
+    static Workload create(Path dataDir) {
+        try {
+            return (Workload) Class.forName("StudentWorkload")
+                .getConstructor(Path.class).newInstance(dataDir);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't load StudentWorkload: " + e, e);
+        }
+    }
+}